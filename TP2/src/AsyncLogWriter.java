@@ -0,0 +1,196 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.locks.LockSupport;
+
+public class AsyncLogWriter implements Runnable {
+
+	// Writer parameters
+	private static final int maxBatch = 1024;
+	private static final long idleWait = 1000000;
+	private static final long shutdownWait = 2000;
+	private static final int threadNameWidth = 18;
+	private static final String separator = " - ";
+	
+	private LogRingBuffer buffer;
+	private boolean toConsole;
+	private boolean toFile;
+	private FileChannel channel;
+	private DateFormat dateFormat = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
+	private long formattedSecond = -1;
+	private String formattedDate;
+	private StringBuilder consoleBatch = new StringBuilder();
+	private StringBuilder fileBatch = new StringBuilder();
+	private Thread thread;
+	private volatile boolean stopping = false;
+	
+	/**
+	 * Constructs the single consumer of the log ring buffer, formatting the events it drains and
+	 * writing them in batches to the console and to a log file kept open for the whole run.
+	 * 
+	 * @param buffer the log ring buffer
+	 * @param toConsole whether to print to the console
+	 * @param toFile whether to append to the log file
+	 * @param filepath the path of the log file
+	 */
+	public AsyncLogWriter(LogRingBuffer buffer, boolean toConsole, boolean toFile, String filepath) {
+		
+		this.buffer = buffer;
+		this.toConsole = toConsole;
+		this.toFile = toFile;
+		
+		if(!toFile) return;
+		
+		try {
+			channel = FileChannel.open(Paths.get(filepath), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		} catch(IOException e) {
+			e.printStackTrace();
+			System.err.println("Could not open log file!");
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Starts the writer thread and makes the JVM drain the buffer before exiting.
+	 */
+	public void start() {
+		
+		thread = new Thread(this, "AsyncLogWriter");
+		thread.setDaemon(true);
+		thread.start();
+		
+		Runtime.getRuntime().addShutdownHook(new Thread(this::stop));
+	}
+	
+	/**
+	 * Stops the writer thread once everything already logged was written.
+	 */
+	private void stop() {
+		
+		stopping = true;
+		LockSupport.unpark(thread);
+		
+		try {
+			thread.join(shutdownWait);
+		} catch(InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	@Override
+	public void run() {
+		
+		while(true) {
+			
+			if(writeBatch() > 0) continue;
+			
+			if(stopping) break;
+			LockSupport.parkNanos(idleWait);
+		}
+		
+		long dropped = Logger.getInstance().getDroppedCount();
+		if(dropped > 0 && toConsole) {
+			System.out.println("Dropped " + dropped + " log messages while the log buffer was full");
+		}
+		
+		if(channel == null) return;
+		
+		try {
+			channel.close();
+		} catch(IOException e) {
+			System.out.println("IO exception on log close");
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Appends the thread name of an event, padded to a fixed width, followed by its message.
+	 * 
+	 * @param batch the batch to append to
+	 * @param event the log event
+	 */
+	private void appendLine(StringBuilder batch, LogEvent event) {
+		
+		batch.append(event.getThreadName());
+		for(int i = event.getThreadName().length(); i < threadNameWidth; i++) {
+			batch.append(' ');
+		}
+		
+		batch.append(separator).append(event.getMessage());
+	}
+	
+	/**
+	 * Formats the date of an event, reusing the last date formatted when the event was logged within the same second.
+	 * 
+	 * @param time the time in milliseconds the event was logged
+	 * @return the formatted date
+	 */
+	private String formatDate(long time) {
+		
+		long second = time / 1000;
+		if(second != formattedSecond) {
+			formattedSecond = second;
+			formattedDate = dateFormat.format(new Date(time));
+		}
+		
+		return formattedDate;
+	}
+	
+	/**
+	 * Drains up to a batch of events from the buffer and writes them with a single console print
+	 * and a single file write.
+	 * 
+	 * @return the number of events written
+	 */
+	private int writeBatch() {
+		
+		int count = 0;
+		LogEvent event;
+		while(count < maxBatch && (event = buffer.poll()) != null) {
+			
+			// Same layouts as synchronous logging, formatted by hand since String.format dominates the writer's time
+			if(toConsole) {
+				appendLine(consoleBatch, event);
+				consoleBatch.append('\n');
+			}
+			
+			if(toFile) {
+				fileBatch.append(formatDate(event.getTime())).append(separator);
+				appendLine(fileBatch, event);
+				fileBatch.append(System.lineSeparator());
+			}
+			
+			count++;
+		}
+		
+		if(count == 0) return 0;
+		
+		if(toConsole) {
+			System.out.print(consoleBatch);
+			System.out.flush();
+			consoleBatch.setLength(0);
+		}
+		
+		if(toFile) {
+			try {
+				ByteBuffer bytes = ByteBuffer.wrap(fileBatch.toString().getBytes(StandardCharsets.UTF_8));
+				while(bytes.hasRemaining()) {
+					channel.write(bytes);
+				}
+			} catch(IOException e) {
+				System.out.println("IO exception on log write");
+				e.printStackTrace();
+			}
+			
+			fileBatch.setLength(0);
+		}
+		
+		return count;
+	}
+}
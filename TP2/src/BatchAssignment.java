@@ -0,0 +1,65 @@
+import java.io.Serializable;
+
+public class BatchAssignment implements Serializable {
+
+	private static final long serialVersionUID = -5402376781127439028L;
+	
+	String carName;
+	String parkingLotName;
+	ParkingLotAgent.SpotType spotType;
+	int hoursNeeded;
+	int score;
+	
+	/**
+	 * Encapsulates a car agent to parking lot agent assignment decided by the batch matcher.
+	 * Sent in bulk to the parking lot agent and individually to the car agent.
+	 * 
+	 * @param carName the local name of the car agent
+	 * @param parkingLotName the local name of the parking lot agent
+	 * @param spotType the spot type assigned to the car agent
+	 * @param hoursNeeded the hours needed by the car agent
+	 * @param score the value the car agent's evaluator gave to the parking lot
+	 */
+	public BatchAssignment(String carName, String parkingLotName, ParkingLotAgent.SpotType spotType, int hoursNeeded, int score) {
+		this.carName = carName;
+		this.parkingLotName = parkingLotName;
+		this.spotType = spotType;
+		this.hoursNeeded = hoursNeeded;
+		this.score = score;
+	}
+
+	/**
+	 * @return the local name of the car agent
+	 */
+	public String getCarName() {
+		return carName;
+	}
+
+	/**
+	 * @return the local name of the parking lot agent
+	 */
+	public String getParkingLotName() {
+		return parkingLotName;
+	}
+
+	/**
+	 * @return the spot type assigned to the car agent
+	 */
+	public ParkingLotAgent.SpotType getSpotType() {
+		return spotType;
+	}
+
+	/**
+	 * @return the hours needed by the car agent
+	 */
+	public int getHoursNeeded() {
+		return hoursNeeded;
+	}
+
+	/**
+	 * @return the value the car agent's evaluator gave to the parking lot
+	 */
+	public int getScore() {
+		return score;
+	}
+}
@@ -0,0 +1,184 @@
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.core.behaviours.TickerBehaviour;
+import jade.lang.acl.ACLMessage;
+
+public class BatchMatcherAgent extends Agent {
+
+	private static final long serialVersionUID = -8226719420404417635L;
+	
+	// Batch matching messages
+	public static final String matcherName = "BatchMatcher";
+	public static final String matchingOntology = "batch-matching";
+	
+	private LinkedHashMap<String, ParkingLotCapacity> parkingLots = new LinkedHashMap<String, ParkingLotCapacity>();
+	private LinkedHashMap<String, CarAgentProposal> pendingCars = new LinkedHashMap<String, CarAgentProposal>();
+	
+	public void setup() {
+		
+		ProposalHandles.getInstance().addLocalAgent(getName());
+		
+		addBehaviour(new BatchMatcherBehavior(this));
+		addBehaviour(new TickerBehaviour(this, RunAgents.getBatchWindow()) {
+
+			private static final long serialVersionUID = 4716503245185940376L;
+
+			@Override
+			protected void onTick() {
+				matchWindow();
+			}
+		});
+	}
+	
+	/**
+	 * @param capacity the terms and free spots of a parking lot agent
+	 */
+	public void registerParkingLot(ParkingLotCapacity capacity) {
+		parkingLots.put(capacity.getParkingLotName(), capacity);
+	}
+	
+	/**
+	 * @param parkingLotName the local name of the parking lot agent that had a spot vacated
+	 * @param spotType the spot type vacated
+	 */
+	public void vacateSpot(String parkingLotName, ParkingLotAgent.SpotType spotType) {
+		parkingLots.get(parkingLotName).addSpots(spotType, 1);
+	}
+	
+	/**
+	 * @param carName the local name of the car agent requesting a spot
+	 * @param terms the car agent terms
+	 */
+	public void addRequest(String carName, CarAgentProposal terms) {
+		pendingCars.put(carName, terms);
+	}
+	
+	/**
+	 * Assigns all car agents that requested a spot during the last window in one pass. Every
+	 * car agent to parking lot spot type pair is scored with the car's own evaluator, then
+	 * a min cost flow parks as many cars as possible at the lowest total score without going
+	 * over any spot type's free spots. Waits until all parking lots have registered.
+	 */
+	private void matchWindow() {
+		
+		if(pendingCars.isEmpty() || parkingLots.size() < RunAgents.getParkingLotAgents().size()) return;
+		
+		ArrayList<String> carNames = new ArrayList<String>(pendingCars.keySet());
+		ArrayList<ParkingLotCapacity> slotLots = new ArrayList<ParkingLotCapacity>();
+		ArrayList<ParkingLotAgent.SpotType> slotTypes = new ArrayList<ParkingLotAgent.SpotType>();
+		
+		// Each parking lot spot type with free spots is a slot
+		for(ParkingLotCapacity lot : parkingLots.values()) {
+			for(ParkingLotAgent.SpotType spotType : ParkingLotAgent.SpotType.values()) {
+				if(lot.getSpots(spotType) > 0) {
+					slotLots.add(lot);
+					slotTypes.add(spotType);
+				}
+			}
+		}
+		
+		// Nodes are source, cars, slots and sink
+		int source = 0;
+		int firstSlot = carNames.size() + 1;
+		int sink = firstSlot + slotLots.size();
+		MinCostFlow network = new MinCostFlow(sink + 1);
+		
+		ArrayList<int[]> candidateEdges = new ArrayList<int[]>();
+		for(int i = 0; i < carNames.size(); i++) {
+			
+			CarAgentProposal terms = pendingCars.get(carNames.get(i));
+			CarEvaluator eval = CarEvaluator.createEvaluator(terms);
+			network.addEdge(source, i + 1, 1, 0);
+			
+			for(int j = 0; j < slotLots.size(); j++) {
+				
+				ParkingLotAgent.SpotType spotType = slotTypes.get(j);
+				boolean isDesired = false;
+				for(ParkingLotAgent.SpotType desired : terms.getDesiredSpots()) {
+					if(desired == spotType) isDesired = true;
+				}
+				if(!isDesired) continue;
+				
+				eval.setProposal(slotLots.get(j).toProposal(spotType));
+				int score = eval.evaluateProposal(slotLots.get(j).getParkingLotName());
+				if(score == 0) continue;
+				
+				int edge = network.addEdge(i + 1, firstSlot + j, 1, score);
+				candidateEdges.add(new int[] {edge, i, j, score});
+			}
+		}
+		
+		for(int j = 0; j < slotLots.size(); j++) {
+			network.addEdge(firstSlot + j, sink, slotLots.get(j).getSpots(slotTypes.get(j)), 0);
+		}
+		
+		network.solve(source, sink);
+		
+		// Collect assignments per parking lot
+		HashMap<String, ArrayList<BatchAssignment>> lotAssignments = new HashMap<String, ArrayList<BatchAssignment>>();
+		for(int[] candidate : candidateEdges) {
+			
+			if(network.getFlow(candidate[0]) == 0) continue;
+			
+			String carName = carNames.get(candidate[1]);
+			ParkingLotCapacity lot = slotLots.get(candidate[2]);
+			ParkingLotAgent.SpotType spotType = slotTypes.get(candidate[2]);
+			BatchAssignment assignment = new BatchAssignment(carName, lot.getParkingLotName(), spotType, pendingCars.get(carName).getHoursNeeded(), candidate[3]);
+			
+			lot.addSpots(spotType, -1);
+			pendingCars.remove(carName);
+			
+			if(!lotAssignments.containsKey(lot.getParkingLotName())) {
+				lotAssignments.put(lot.getParkingLotName(), new ArrayList<BatchAssignment>());
+			}
+			lotAssignments.get(lot.getParkingLotName()).add(assignment);
+			
+			sendResult(ACLMessage.INFORM, carName, assignment);
+		}
+		
+		for(String lotName : lotAssignments.keySet()) {
+			sendResult(ACLMessage.ACCEPT_PROPOSAL, lotName, lotAssignments.get(lotName));
+		}
+		
+		// Cars left over could not be parked anywhere
+		for(String carName : pendingCars.keySet()) {
+			ACLMessage refuse = new ACLMessage(ACLMessage.REFUSE);
+			refuse.addReceiver(new AID(carName, AID.ISLOCALNAME));
+			refuse.setOntology(matchingOntology);
+			send(refuse);
+		}
+		
+		Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.NEGOTIATION, () -> "Matched " + (carNames.size() - pendingCars.size()) + " of " + carNames.size() + " cars to " + lotAssignments.size() + " parking lots");
+		pendingCars.clear();
+	}
+	
+	/**
+	 * Sends a matching result to a car agent or parking lot agent.
+	 * 
+	 * @param performative the performative of the message
+	 * @param receiverName the local name of the receiver
+	 * @param content the assignment or list of assignments to send
+	 */
+	private void sendResult(int performative, String receiverName, Serializable content) {
+		
+		ACLMessage msg = new ACLMessage(performative);
+		msg.addReceiver(new AID(receiverName, AID.ISLOCALNAME));
+		msg.setOntology(matchingOntology);
+		
+		try {
+			msg.setContentObject(content);
+		} catch(IOException e) {
+			e.printStackTrace();
+			System.err.println("I/O Exception in batch matcher agent!");
+			System.exit(1);
+		}
+		
+		send(msg);
+	}
+}
@@ -0,0 +1,60 @@
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.lang.acl.UnreadableException;
+
+public class BatchMatcherBehavior extends CyclicBehaviour {
+
+	private static final long serialVersionUID = 8120674903168852215L;
+
+	BatchMatcherAgent agent;
+	
+	private MessageTemplate template = MessageTemplate.MatchOntology(BatchMatcherAgent.matchingOntology);
+	
+	/**
+	 * Constructs a batch matcher behaviour responsible for receiving parking lot registrations,
+	 * vacated spot updates and car agent requests. Requests are only gathered here, they are
+	 * assigned when the matching window ends.
+	 * 
+	 * @param a the batch matcher agent
+	 */
+	public BatchMatcherBehavior(Agent a) {
+		super(a);
+		this.agent = (BatchMatcherAgent) a;
+	}
+	
+	@Override
+	public void action() {
+		
+		ACLMessage msg = myAgent.receive(template);
+		if(msg == null) {
+			block();
+			return;
+		}
+		
+		String sender = msg.getSender().getLocalName();
+		
+		try {
+			switch(msg.getPerformative()) {
+			case ACLMessage.SUBSCRIBE:
+				Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.NEGOTIATION, "{} registered for batch matching", sender);
+				agent.registerParkingLot((ParkingLotCapacity) msg.getContentObject());
+				break;
+			case ACLMessage.INFORM:
+				agent.vacateSpot(sender, ParkingLotAgent.SpotType.valueOf(msg.getContent()));
+				break;
+			case ACLMessage.REQUEST:
+				Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.NEGOTIATION, "{} requested a spot", sender);
+				agent.addRequest(sender, ProposalCodec.getCarAgentProposal(msg));
+				break;
+			default:
+				break;
+			}
+		} catch(UnreadableException e) {
+			e.printStackTrace();
+			System.err.println("Error occured during the decoding of the content of the ACLMessage!");
+			System.exit(1);
+		}
+	}
+}
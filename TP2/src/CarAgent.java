@@ -1,9 +1,9 @@
 import java.awt.Point;
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Random;
-import java.util.concurrent.LinkedBlockingQueue;
 
 import jade.core.AID;
 import jade.core.Agent;
@@ -29,7 +29,7 @@ public class CarAgent extends Agent {
 	private static final int evaluatorI = 9;
 	
 	// Car constants
-	private static final int randomConfig = 0;
+	private static final int flexibleCarType = 3;
 	
 	// Car agent parameters
 	private Point coords;
@@ -39,78 +39,236 @@ public class CarAgent extends Agent {
 	private boolean regularSpot;
 	private boolean luxurySpot;
 	private boolean handicapSpot;
+	private int startDelay;
 	
-	private String localName;
+	private CarAgentProposal terms;
 	private CarEvaluator eval;
 	
+	// Nearest parking lots search
+	private int searchWidth;
+	private HashSet<Integer> contactedLots = new HashSet<Integer>();
+	
+	// Replica of the vacancy board, parking lots not on it yet are assumed to have vacancy
+	private HashMap<String, ParkingLotStatus> vacancies = new HashMap<String, ParkingLotStatus>();
+	private long vacancyVersion = -1;
+	private CarVacancyBehavior vacancyBehavior;
+	
 	public void setup() {
 		
-		// Check type of config file
-		this.initArgs(((int) this.getArguments()[configTypeI] == randomConfig) ? true : false);
+		ProposalHandles.getInstance().addLocalAgent(getName());
+		
+		this.initArgs();
 
 		this.logCarAgent();
 		
-		try {
-			this.contractNetInitiate();
-		} catch(StaleProxyException e) {
-			e.printStackTrace();
-			System.err.println("Exception initiating contract net!");
-			System.exit(1);
-		} catch(InterruptedException e) {
-			e.printStackTrace();
-			System.err.println("Thread interrupted!");
-			System.exit(1);
-		} catch(IOException e) {
-			e.printStackTrace();
-			System.err.println("I/O Exception in car agent!");
-			System.exit(1);
+		if(RunAgents.isVacancyBoard()) this.subscribeToVacancies();
+		
+		// Wait for turn, concurrent negotiations have no queues and rely on parking lot spot holds instead
+		switch(RunAgents.getNegotiationMode()) {
+		case CONCURRENT:
+			this.startNegotiation();
+			break;
+		case BATCH:
+			this.requestMatch();
+			break;
+		default:
+			Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.NEGOTIATION, "waiting in queue");
+			addBehaviour(new CarTurnBehavior(this));
+			break;
 		}
 	}
 
 	/**
-	 * Checks whether the current agent is at the head of the queue. If not, the
-	 * agent waits until its turn. Implemented using wait() and notifyAll() methods.
+	 * Starts negotiating with the parking lots, called once it is this agent's turn.
 	 */
-	private void checkQueue() throws InterruptedException {
+	public void startNegotiation() {
 		
-		LinkedBlockingQueue<String> queue = RunAgents.getWaitingCars();
-
-		// Block in queue if current head isn't the same ID as this agent
-		if(!queue.peek().equals(localName)) {
-
-			Logger.getInstance().logPrint("waiting in queue");
-			synchronized(queue) {
-				while(!queue.peek().equals(localName)) {
-					queue.wait();
-				}
-			}
+		searchWidth = RunAgents.getNearestLots();
+		
+		// Districts know which parking lots have vacancy now, ask them first unless searching the nearest parking lots or booking ahead
+		if(RunAgents.isDistricted() && !isNearestSearch() && !terms.isAdvanceBooking()) {
+			addBehaviour(new CarDistrictBehavior(this));
+		} else this.contractNetInitiate(findCandidates());
+	}
+	
+	/**
+	 * Widens the nearest parking lots search after a round where none of the nearest parking
+	 * lots could be accepted, starting a new round with twice as many parking lots not yet contacted.
+	 * 
+	 * @return whether a new round was started
+	 */
+	public boolean widenSearch() {
+		
+		if(!isNearestSearch()) return false;
+		
+		searchWidth *= 2;
+		ArrayList<Integer> candidates = findCandidates();
+		if(candidates.isEmpty()) return false;
+		
+		Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.NEGOTIATION, "Widening search to {} more parking lots", candidates.size());
+		this.contractNetInitiate(candidates);
+		return true;
+	}
+	
+	/**
+	 * @return whether this agent only contacts the nearest parking lots with vacancy, never when booking ahead
+	 */
+	private boolean isNearestSearch() {
+		return RunAgents.getNearestLots() > 0 && eval.prefersNearest() && !terms.isAdvanceBooking();
+	}
+	
+	/**
+	 * Finds the parking lots to send the next cfp to. These are either the nearest parking lots
+	 * with vacancy not yet contacted or all the parking lots within reach.
+	 * 
+	 * @return the indices of the parking lots to contact
+	 */
+	private ArrayList<Integer> findCandidates() {
+		
+		if(!isNearestSearch()) {
+			return RunAgents.getParkingLotGrid().findWithin(coords, eval.getReach());
 		}
-
-		Logger.getInstance().logPrint("my turn");
+		
+		int desiredMask = ParkingLotAgent.toSpotMask(terms.getDesiredSpots());
+		ArrayList<Integer> candidates = RunAgents.getParkingLotKdTree().findNearest(coords, searchWidth, eval.getReach(), desiredMask, contactedLots);
+		contactedLots.addAll(candidates);
+		
+		return candidates;
 	}
 
 	/**
-	 * Initiates a ContractNetInitiator to start negotiation with the parking lots.
+	 * Initiates a ContractNetInitiator to start negotiation with the given parking lots.
+	 * 
+	 * @param candidates the indices of the parking lots to contact
 	 */
-	private void contractNetInitiate() throws StaleProxyException, InterruptedException, IOException {
+	public void contractNetInitiate(ArrayList<Integer> candidates) {
 		
-		// Wait for turn
-		checkQueue();
+		try {
+			this.sendCfp(candidates);
+		} catch(StaleProxyException e) {
+			e.printStackTrace();
+			System.err.println("Exception initiating contract net!");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Builds the cfp message and adds the ContractNetInitiator behaviour that sends it.
+	 * 
+	 * @param candidates the indices of the parking lots to contact
+	 */
+	private void sendCfp(ArrayList<Integer> candidates) throws StaleProxyException {
 		
 		// Call for proposals
 		ACLMessage msg = new ACLMessage(ACLMessage.CFP);
 		
-		// Add all parking lots as receivers
+		// Add candidate parking lots as receivers, leaving out those that keep missing deadlines
 		ArrayList<AgentController> parkingLots = RunAgents.getParkingLotAgents();
-		for(AgentController agent : parkingLots) {
-			msg.addReceiver(new AID(agent.getName(), AID.ISGUID));
+		ArrayList<String> receivers = new ArrayList<String>();
+		for(int i : candidates) {
+			
+			AID receiver = new AID(parkingLots.get(i).getName(), AID.ISGUID);
+			if(RunAgents.isAdaptiveDeadlines() && ResponseTimeTracker.getInstance().isExcluded(receiver.getLocalName())) continue;
+			if(!mayHaveVacancy(receiver.getLocalName())) continue;
+			
+			msg.addReceiver(receiver);
+			receivers.add(receiver.getLocalName());
 		}
 		
 		// Message protocol and content
+		long deadline = RunAgents.isAdaptiveDeadlines() ? ResponseTimeTracker.getInstance().calcDeadline(receivers) : 10000;
 		msg.setProtocol(FIPANames.InteractionProtocol.FIPA_CONTRACT_NET);
-		msg.setReplyByDate(new Date(System.currentTimeMillis() + 10000));
+		msg.setReplyByDate(new Date(System.currentTimeMillis() + deadline));
+		
+		// Set proposal parameters
+		ProposalCodec.setContent(msg, terms);
+
+		addBehaviour(new CarBehavior(this, msg, receivers));
+	}
+	
+	/**
+	 * Subscribes to the vacancy board, which agrees with a snapshot of every parking lot's vacancy
+	 * and then pushes each change until the subscription is cancelled.
+	 */
+	private void subscribeToVacancies() {
+		
+		vacancyBehavior = new CarVacancyBehavior(this);
+		addBehaviour(vacancyBehavior);
+		
+		ACLMessage msg = new ACLMessage(ACLMessage.SUBSCRIBE);
+		msg.addReceiver(new AID(VacancyBoardAgent.boardName, AID.ISLOCALNAME));
+		msg.setProtocol(FIPANames.InteractionProtocol.FIPA_SUBSCRIBE);
+		msg.setOntology(VacancyBoardAgent.boardOntology);
+		send(msg);
+	}
+	
+	/**
+	 * Cancels the vacancy board subscription once the car agent is done negotiating. Does nothing
+	 * if the car agent isn't subscribed.
+	 */
+	public void cancelVacancySubscription() {
+		
+		if(vacancyBehavior == null) return;
+		
+		removeBehaviour(vacancyBehavior);
+		vacancyBehavior = null;
+		
+		ACLMessage msg = new ACLMessage(ACLMessage.CANCEL);
+		msg.addReceiver(new AID(VacancyBoardAgent.boardName, AID.ISLOCALNAME));
+		msg.setProtocol(FIPANames.InteractionProtocol.FIPA_SUBSCRIBE);
+		msg.setOntology(VacancyBoardAgent.boardOntology);
+		send(msg);
+	}
+	
+	/**
+	 * Applies a vacancy board change to the local replica, ignoring changes older than the replica.
+	 * 
+	 * @param update the vacancy board change
+	 */
+	public void applyVacancyUpdate(VacancyUpdate update) {
+		
+		if(update.getVersion() <= vacancyVersion) return;
+		
+		vacancies.putAll(update.getStatuses());
+		vacancyVersion = update.getVersion();
+	}
+	
+	/**
+	 * @param parkingLotName the local name of the parking lot agent
+	 * @return whether the replicated vacancy board lets the parking lot have a desired spot type free, vacancy now says nothing about advance bookings
+	 */
+	private boolean mayHaveVacancy(String parkingLotName) {
+		
+		if(terms.isAdvanceBooking()) return true;
+		
+		ParkingLotStatus status = vacancies.get(parkingLotName);
+		return status == null || (status.getSpotMask() & ParkingLotAgent.toSpotMask(terms.getDesiredSpots())) != 0;
+	}
+	
+	/**
+	 * Sends the car agent terms to the batch matcher, which assigns a parking lot to all
+	 * cars that requested one during the same matching window.
+	 */
+	private void requestMatch() {
+		
+		ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
+		msg.addReceiver(new AID(BatchMatcherAgent.matcherName, AID.ISLOCALNAME));
+		msg.setOntology(BatchMatcherAgent.matchingOntology);
+		
+		ProposalCodec.setContent(msg, terms);
+		
+		addBehaviour(new CarBatchBehavior(this));
+		send(msg);
+	}
+	
+	/**
+	 * Builds the terms sent to parking lots, including the desired spot types array.
+	 * 
+	 * @param evaluatorType the type of evaluator the car agent uses on proposals
+	 * @return the car agent terms
+	 */
+	private CarAgentProposal buildTerms(int evaluatorType) {
 		
-		// Build desired spot types array
 		ArrayList<ParkingLotAgent.SpotType> desiredSpotsList = new ArrayList<ParkingLotAgent.SpotType>();
 		if(regularSpot) {
 			desiredSpotsList.add(ParkingLotAgent.SpotType.REGULAR);
@@ -124,21 +282,47 @@ public class CarAgent extends Agent {
 		
 		ParkingLotAgent.SpotType[] desiredSpots = desiredSpotsList.toArray(new ParkingLotAgent.SpotType[0]);
 		
-		// Set proposal parameters
-		msg.setContentObject(new CarAgentProposal(coords, maxHourlyCost, maxDistance, hoursNeeded, desiredSpots));
-
-		addBehaviour(new CarBehavior(this, msg));
+		return new CarAgentProposal(coords, maxHourlyCost, maxDistance, hoursNeeded, desiredSpots, evaluatorType, startDelay);
+	}
+	
+	/**
+	 * Prints a line of CSV data with the fields related to the car agent.
+	 * 
+	 * @param satisfaction the satisfaction rating of the car
+	 */
+	public void carToCSV(float satisfaction) {
+		
+		int zone = (coords.x / 5 + 1) + (coords.y / 5 * 3);
+		
+		Logger.getInstance().csvWrite(zone, maxHourlyCost, maxDistance, eval.getType(), satisfaction);
 	}
 	
 	/**
-	 * Initialises car agent. May randomise parameters or use the provided values
-	 * if using fixed config parameters.
+	 * Returns the satisfaction rating of the car agent based on its cost and distance
+	 * desired compared to the parking lot's cost and distance. Also takes in account
+	 * flexible car behaviours since they allow going over the desired parameters.
 	 * 
-	 * @param isRandom whether the agent generation is randomised or not
+	 * @param bestProposal best proposal value (lower is better)
+	 * @return the satisfaction rating (0 if not parking)
 	 */
-	private void initArgs(boolean isRandom) {
+	public float calcSatisfaction(int bestProposal) {
 		
-		localName = this.getAID().getLocalName();
+		int expectedProposal = maxDistance + maxHourlyCost;
+		int currBest = bestProposal - 2; // Best value is 2, scale to 0 for 100% satisfaction
+
+		// Flexible car had to compromise, raise expected proposal
+		if(eval.getType() == flexibleCarType && bestProposal > expectedProposal) {
+			expectedProposal = (int) Math.ceil((maxDistance + maxHourlyCost) * 1.3);
+		}
+
+		return ((float) expectedProposal - currBest) / (float) expectedProposal;
+	}
+	
+	/**
+	 * Initialises car agent with the provided values, whether they were randomised
+	 * or read from a config file.
+	 */
+	private void initArgs() {
 		
 		// Fetch arguments and convert to integer
 		Object[] args = this.getArguments();
@@ -152,38 +336,42 @@ public class CarAgent extends Agent {
 		luxurySpot = ((int) args[luxurySpotI] != 0) ? true : false;
 		handicapSpot = ((int) args[handicapSpotI] != 0) ? true : false;
 		
+		// Book ahead a random number of simulated hours when parking lots keep booking calendars
+		if(RunAgents.isAdvanceBooking()) {
+			startDelay = new Random().nextInt(RunAgents.getMaxBookingDelay() + 1);
+		}
+		
 		// Select car evaluator
-		eval = selectCarEvaluator(isRandom);
+		terms = buildTerms((int) args[evaluatorI]);
+		eval = selectCarEvaluator();
 	}
 
 	/**
-	 * Selects a car evaluator to use in the negotiation phase. May randomise
-	 * the choice or use a provided value if using fixed config parameters.
+	 * Selects a car evaluator to use in the negotiation phase. The choice is
+	 * randomised when generating random agents so it is known before negotiation queues are built.
 	 * 
-	 * @param isRandom whether the agent generation is randomised or not
 	 * @return the evaluator object to use
 	 */
-	private CarEvaluator selectCarEvaluator(boolean isRandom) {
+	private CarEvaluator selectCarEvaluator() {
 		
-		Random r = new Random();
-		int evalIndex = isRandom ? r.nextInt(4) : (int) this.getArguments()[evaluatorI]; // 0 to 3
+		int evalIndex = (int) this.getArguments()[evaluatorI]; // 0 to 3
 		
 		String currName = Thread.currentThread().getName();
 		switch(evalIndex) {
 		case 0:
 			Thread.currentThread().setName("Strict" + currName);
-			return new StrictCarEvaluator(this);
+			return new StrictCarEvaluator(terms);
 		case 1:
 			Thread.currentThread().setName("LowerCost" + currName);
-			return new LowerCostCarEvaluator(this);
+			return new LowerCostCarEvaluator(terms);
 		case 2:
 			Thread.currentThread().setName("LowerDistance" + currName);
-			return new LowerDistanceCarEvaluator(this);
+			return new LowerDistanceCarEvaluator(terms);
 		case 3:
 			Thread.currentThread().setName("Flexible" + currName);
-			return new FlexibleCarEvaluator(this);
+			return new FlexibleCarEvaluator(terms);
 		default:
-			return new StrictCarEvaluator(this);
+			return new StrictCarEvaluator(terms);
 		}
 	}
 	
@@ -199,6 +387,7 @@ public class CarAgent extends Agent {
 		logger.logPrint("Max hourly cost: " + maxHourlyCost);
 		logger.logPrint("Max distance: " + maxDistance);
 		logger.logPrint("Hours needed: " + hoursNeeded);
+		logger.logPrint("Start delay: " + startDelay);
 		logger.logPrint("Regular: " + regularSpot + " Luxury: " + luxurySpot + " Handicap: " + handicapSpot);
 		logger.logPrint("CAR AGENT ARGS END" + System.lineSeparator());
 	}
@@ -252,6 +441,13 @@ public class CarAgent extends Agent {
 		return handicapSpot;
 	}
 
+	/**
+	 * @return the terms sent by the car agent to parking lots
+	 */
+	public CarAgentProposal getTerms() {
+		return terms;
+	}
+
 	/**
 	 * @return the evaluator object used to evaluate proposals
 	 */
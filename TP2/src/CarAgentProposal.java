@@ -10,6 +10,8 @@ public class CarAgentProposal implements Serializable {
 	int maxDistance;
 	int hoursNeeded;
 	ParkingLotAgent.SpotType[] desiredSpots;
+	int evaluatorType;
+	int startDelay;
 
 	/**
 	 * Encapsulates all the information needed for a car agent to send a cfp message to the parking lot agents.
@@ -19,13 +21,30 @@ public class CarAgentProposal implements Serializable {
 	 * @param maxDistance the max distance tolerated by the car agent
 	 * @param hoursNeeded the hours needed by the car agent
 	 * @param desiredSpots the spot types desired by the car agent
+	 * @param evaluatorType the type of evaluator the car agent uses on proposals
+	 * @param startDelay the simulated hours until the car agent needs the spot, 0 when needed now
 	 */
-	public CarAgentProposal(Point coords, int maxHourlyCost, int maxDistance, int hoursNeeded, ParkingLotAgent.SpotType[] desiredSpots) {
+	public CarAgentProposal(Point coords, int maxHourlyCost, int maxDistance, int hoursNeeded, ParkingLotAgent.SpotType[] desiredSpots, int evaluatorType, int startDelay) {
 		this.coords = coords;
 		this.maxHourlyCost = maxHourlyCost;
 		this.maxDistance = maxDistance;
 		this.hoursNeeded = hoursNeeded;
 		this.desiredSpots = desiredSpots;
+		this.evaluatorType = evaluatorType;
+		this.startDelay = startDelay;
+	}
+	
+	/**
+	 * @param spotType the spot type to check
+	 * @return whether the car agent desires the spot type
+	 */
+	private boolean isDesired(ParkingLotAgent.SpotType spotType) {
+		
+		for(ParkingLotAgent.SpotType spot : desiredSpots) {
+			if(spot == spotType) return true;
+		}
+		
+		return false;
 	}
 
 	/**
@@ -62,4 +81,46 @@ public class CarAgentProposal implements Serializable {
 	public ParkingLotAgent.SpotType[] getDesiredSpots() {
 		return desiredSpots;
 	}
+
+	/**
+	 * @return whether the car agent desires a regular spot
+	 */
+	public boolean isRegularSpot() {
+		return isDesired(ParkingLotAgent.SpotType.REGULAR);
+	}
+
+	/**
+	 * @return whether the car agent desires a luxury spot
+	 */
+	public boolean isLuxurySpot() {
+		return isDesired(ParkingLotAgent.SpotType.LUXURY);
+	}
+
+	/**
+	 * @return whether the car agent desires an handicap spot
+	 */
+	public boolean isHandicapSpot() {
+		return isDesired(ParkingLotAgent.SpotType.HANDICAP);
+	}
+
+	/**
+	 * @return the type of evaluator the car agent uses on proposals
+	 */
+	public int getEvaluatorType() {
+		return evaluatorType;
+	}
+
+	/**
+	 * @return the simulated hours until the car agent needs the spot, 0 when needed now
+	 */
+	public int getStartDelay() {
+		return startDelay;
+	}
+	
+	/**
+	 * @return whether the car agent is booking a spot in advance
+	 */
+	public boolean isAdvanceBooking() {
+		return startDelay > 0;
+	}
 }
\ No newline at end of file
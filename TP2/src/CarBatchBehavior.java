@@ -0,0 +1,63 @@
+import jade.core.Agent;
+import jade.core.behaviours.SimpleBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.lang.acl.UnreadableException;
+
+public class CarBatchBehavior extends SimpleBehaviour {
+
+	private static final long serialVersionUID = 2790118034216623095L;
+
+	CarAgent agent;
+	
+	private boolean matched = false;
+	private MessageTemplate template = MessageTemplate.MatchOntology(BatchMatcherAgent.matchingOntology);
+	
+	/**
+	 * Constructs a car behaviour responsible for waiting on the batch matcher's answer to the
+	 * car agent's request. The matcher either informs the parking lot and spot type assigned
+	 * or refuses when no acceptable spot was left.
+	 * 
+	 * @param a the car agent
+	 */
+	public CarBatchBehavior(Agent a) {
+		super(a);
+		this.agent = (CarAgent) a;
+	}
+
+	@Override
+	public void action() {
+		
+		ACLMessage msg = myAgent.receive(template);
+		if(msg == null) {
+			block();
+			return;
+		}
+		
+		matched = true;
+		SimulationClock.getInstance().settleCar();
+		
+		if(msg.getPerformative() == ACLMessage.INFORM) {
+			
+			BatchAssignment assignment = null;
+			try {
+				assignment = (BatchAssignment) msg.getContentObject();
+			} catch(UnreadableException e) {
+				e.printStackTrace();
+				System.err.println("Error occured during the decoding of the content of the ACLMessage!");
+				System.exit(1);
+			}
+			
+			agent.carToCSV(agent.calcSatisfaction(assignment.getScore()));
+			Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.NEGOTIATION, "Assigned {} spot of {} evaluated at {}", assignment.getSpotType(), assignment.getParkingLotName(), assignment.getScore());
+		} else {
+			agent.carToCSV(0);
+			Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.NEGOTIATION, "No parking lot assigned");
+		}
+	}
+
+	@Override
+	public boolean done() {
+		return matched;
+	}
+}
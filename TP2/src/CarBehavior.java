@@ -1,11 +1,11 @@
-import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Vector;
-import java.util.concurrent.LinkedBlockingQueue;
 
 import jade.core.AID;
 import jade.core.Agent;
 import jade.lang.acl.ACLMessage;
-import jade.lang.acl.UnreadableException;
 import jade.proto.ContractNetInitiator;
 
 public class CarBehavior extends ContractNetInitiator {
@@ -14,7 +14,23 @@ public class CarBehavior extends ContractNetInitiator {
 
 	CarAgent agent;
 
-	private static final int flexibleCarType = 3;
+	private boolean accepted = false;
+	private float acceptedSatisfaction;
+	private boolean turnEnded = false;
+	// A wider round was started by this one and ends the turn itself
+	private boolean widened = false;
+	
+	// Early close policy
+	private float earlyCloseSatisfaction;
+	private boolean closedEarly = false;
+	private HashSet<String> pendingInReach = new HashSet<String>();
+	
+	// Response time tracking
+	private long cfpSentTime;
+	private HashSet<String> pendingAnswers;
+	
+	// Proposals decoded during this negotiation, each parking lot proposes at most once
+	private HashMap<String, ParkingLotProposal> decodedProposals = new HashMap<String, ParkingLotProposal>();
 	
 	/**
 	 * Constructs a car behaviour responsible for handling the ContractNetInitiator role
@@ -24,55 +40,85 @@ public class CarBehavior extends ContractNetInitiator {
 	 * 
 	 * @param a the car agent
 	 * @param cfp the call for proposals message associated with this initiator
+	 * @param receivers the local names of the parking lots receiving the cfp
 	 */
-	public CarBehavior(Agent a, ACLMessage cfp) {
+	public CarBehavior(Agent a, ACLMessage cfp, ArrayList<String> receivers) {
 		super(a, cfp);
 		this.agent = (CarAgent) a;
+		this.pendingAnswers = new HashSet<String>(receivers);
+		this.earlyCloseSatisfaction = RunAgents.getEarlyCloseSatisfaction();
+		
+		// Parking lots whose answer may still matter when closing early
+		if(earlyCloseSatisfaction >= 0) {
+			pendingInReach.addAll(receivers);
+		}
 	}
-
+	
 	/**
-	 * Removes the head of the queue from the waiting cars queue. It should be the
-	 * car that just negotiated. 
+	 * Records how long a parking lot took to answer the cfp when learning deadlines.
+	 * 
+	 * @param parkingLotName the local name of the parking lot that answered
 	 */
-	private void removeFromQueue() {
+	private void recordAnswer(String parkingLotName) {
+		
+		if(!RunAgents.isAdaptiveDeadlines() || !pendingAnswers.remove(parkingLotName)) return;
+		ResponseTimeTracker.getInstance().recordResponse(parkingLotName, System.currentTimeMillis() - cfpSentTime);
+	}
 	
-		LinkedBlockingQueue<String> queue = RunAgents.getWaitingCars();
-		
-		// Remove head from queue since it was the agent that just negotiated
-		try {
-			queue.take();
-		} catch(InterruptedException e) {
-			e.printStackTrace();
-			System.err.println("Thread interrupted!");
-			System.exit(1);
-		}
+	/**
+	 * Records the answer of a parking lot and closes the round early once every parking lot
+	 * within reach has answered, since no other proposal could be accepted.
+	 * 
+	 * @param parkingLotName the local name of the parking lot that answered
+	 */
+	private void answeredInReach(String parkingLotName) {
 		
-		// Check if all negotiations have ended
-		if(queue.size() == 0) {
-			Logger.getInstance().logPrint("Waiting cars queue emptied, no more negotiations to do!");
-		}
+		if(earlyCloseSatisfaction < 0 || closedEarly) return;
 		
-		// Notify all threads waiting for queue
-		synchronized(queue) {
-			queue.notifyAll();
+		pendingInReach.remove(parkingLotName);
+		if(pendingInReach.isEmpty()) {
+			Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.NEGOTIATION, "Every parking lot in reach answered, closing negotiation early");
+			closedEarly = true;
+			skipNextResponses();
 		}
 	}
+
+	/**
+	 * Ends this car's negotiation, cancelling its vacancy board subscription and telling the queue
+	 * coordinator so that the turn passes on. Only done once per negotiation and the queue coordinator
+	 * isn't told at all if cars negotiate concurrently.
+	 */
+	private void endTurn() {
+	
+		if(turnEnded) return;
+		turnEnded = true;
+		
+		agent.cancelVacancySubscription();
+		SimulationClock.getInstance().settleCar();
+		if(!RunAgents.isQueued()) return;
+		
+		ACLMessage done = new ACLMessage(ACLMessage.INFORM);
+		done.addReceiver(new AID(QueueCoordinatorAgent.coordinatorName, AID.ISLOCALNAME));
+		done.setOntology(QueueCoordinatorAgent.turnOntology);
+		done.setContent(QueueCoordinatorAgent.turnDone);
+		myAgent.send(done);
+	}
 	
 	/**
-	 * Extracts a parking lot proposal object from an ACLMessage sent as proposal message.
+	 * Extracts a parking lot proposal object from an ACLMessage sent as proposal message. The content
+	 * is only decoded the first time, later calls for the same proposer reuse the decoded object.
 	 * 
 	 * @param msg the ACLMessage to get the object from
 	 * @return the parking lot proposal object
 	 */
 	private ParkingLotProposal getParkingLotProposal(ACLMessage msg) {
 		
-		ParkingLotProposal parkingLotProposal = null;
-		try {
-			parkingLotProposal = (ParkingLotProposal) msg.getContentObject();
-		} catch(UnreadableException e) {
-			e.printStackTrace();
-			System.err.println("Error occured during the decoding of the content of the ACLMessage!");
-			System.exit(1);
+		String proposer = msg.getSender().getLocalName();
+		ParkingLotProposal parkingLotProposal = decodedProposals.get(proposer);
+		
+		if(parkingLotProposal == null) {
+			parkingLotProposal = ProposalCodec.getParkingLotProposal(msg);
+			decodedProposals.put(proposer, parkingLotProposal);
 		}
 		
 		return parkingLotProposal;
@@ -98,71 +144,87 @@ public class CarBehavior extends ContractNetInitiator {
 		return ParkingLotAgent.SpotType.REGULAR;
 	}
 
-	/**
-	 * Sets the CSV fields related to the car agent and prints a line of CSV data.
-	 * 
-	 * @param satisfaction the satisfaction rating of the car
-	 */
-	private void carToCSV(float satisfaction) {
-		
-		Point coords = agent.getCoords();
-		int zone = (coords.x / 5 + 1) + (coords.y / 5 * 3);
-		
-		Logger.getInstance().setCarCSVData(zone, agent.getMaxHourlyCost(), agent.getMaxDistance(), agent.getEval().getType(), satisfaction);
-		Logger.getInstance().csvWrite();
-	}
-	
-	/**
-	 * Returns the satisfaction rating of the car agent based on its cost and distance
-	 * desired compared to the parking lot's cost and distance. Also takes in account
-	 * flexible car behaviours since they allow going over the desired parameters.
-	 * 
-	 * @param bestProposal best proposal value (lower is better)
-	 * @return the satisfaction rating (0 if not parking)
-	 */
-	private float calcSatisfaction(int bestProposal) {
+	@Override
+	protected Vector prepareCfps(ACLMessage cfp) {
 		
-		int expectedProposal = agent.getMaxDistance() + agent.getMaxHourlyCost();
-		int currBest = bestProposal - 2; // Best value is 2, scale to 0 for 100% satisfaction
-
-		// Flexible car had to compromise, raise expected proposal
-		if(agent.getEval().getType() == flexibleCarType && bestProposal > expectedProposal) {
-			expectedProposal = (int) Math.ceil((agent.getMaxDistance() + agent.getMaxHourlyCost()) * 1.3);
-		}
-
-		return ((float) expectedProposal - currBest) / (float) expectedProposal;
+		cfpSentTime = System.currentTimeMillis();
+		return super.prepareCfps(cfp);
 	}
 	
 	@Override
 	protected void handlePropose(ACLMessage propose, Vector v) {
 		
+		String parkingLotName = propose.getSender().getLocalName();
+		recordAnswer(parkingLotName);
+		
 		ParkingLotProposal parkingLotProposal = getParkingLotProposal(propose);
 		
-		Logger.getInstance().logPrint(propose.getSender().getLocalName() + " proposed -" +
-		" coords: (" + parkingLotProposal.getCoords().x + ", " + parkingLotProposal.getCoords().y + ");"
-		+ " hourly cost: " + parkingLotProposal.getHourlyCost() + ";"
-		+ " luxury cost modifier: " + parkingLotProposal.getLuxuryCostPercent() + ";"
-		+ " hasRegular: " + parkingLotProposal.isHasRegular() + ";"
-		+ " hasLuxury: " + parkingLotProposal.isHasLuxury() + ";"
-		+ " hasHandicap: " + parkingLotProposal.isHasHandicap());
+		// The proposal dump is only built when debug negotiation logging is enabled
+		if(Logger.getInstance().isEnabled(Logger.LogLevel.DEBUG, Logger.LogCategory.NEGOTIATION)) {
+			Logger.getInstance().logPrint(parkingLotName + " proposed -" +
+			" coords: (" + parkingLotProposal.getCoords().x + ", " + parkingLotProposal.getCoords().y + ");"
+			+ " hourly cost: " + parkingLotProposal.getHourlyCost() + ";"
+			+ " luxury cost modifier: " + parkingLotProposal.getLuxuryCostPercent() + ";"
+			+ " hasRegular: " + parkingLotProposal.isHasRegular() + ";"
+			+ " hasLuxury: " + parkingLotProposal.isHasLuxury() + ";"
+			+ " hasHandicap: " + parkingLotProposal.isHasHandicap());
+		}
+		
+		// Close the round as soon as a proposal is good enough
+		if(earlyCloseSatisfaction >= 0 && !closedEarly) {
+			
+			CarEvaluator eval = agent.getEval();
+			eval.setProposal(parkingLotProposal);
+			int proposal = eval.evaluateProposal(parkingLotName);
+			
+			if(proposal != 0 && agent.calcSatisfaction(proposal) >= earlyCloseSatisfaction) {
+				Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.NEGOTIATION, "Proposal of {} is good enough, closing negotiation early", parkingLotName);
+				closedEarly = true;
+				skipNextResponses();
+				return;
+			}
+		}
+		
+		answeredInReach(parkingLotName);
 	}
 	
 	@Override
 	protected void handleRefuse(ACLMessage refuse) {
 
-		Logger.getInstance().logPrint(refuse.getSender().getLocalName() + " refused to propose");
-		removeFromQueue();
+		String parkingLotName = refuse.getSender().getLocalName();
+		Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.NEGOTIATION, "{} refused to propose", parkingLotName);
+		recordAnswer(parkingLotName);
+		answeredInReach(parkingLotName);
 	}
 	
 	@Override
 	protected void handleFailure(ACLMessage failure) {
 
-		if(failure.getSender().equals(myAgent.getAMS())) Logger.getInstance().logPrint("Responder does not exist!");
-		else Logger.getInstance().logPrint(failure.getSender().getLocalName() + " failed!");
+		if(failure.getSender().equals(myAgent.getAMS())) Logger.getInstance().log(Logger.LogLevel.WARN, Logger.LogCategory.NEGOTIATION, "Responder does not exist!");
+		else Logger.getInstance().log(Logger.LogLevel.WARN, Logger.LogCategory.NEGOTIATION, "{} failed!", failure.getSender().getLocalName());
+		
+		if(!accepted) {
+			recordAnswer(failure.getSender().getLocalName());
+			answeredInReach(failure.getSender().getLocalName());
+		}
+		
+		// The accepted parking lot could not honour its proposal, the car did not park and negotiation is over
+		if(accepted) {
+			agent.carToCSV(0);
+			endTurn();
+		}
 	}
 	
 	@Override
 	protected void handleAllResponses(Vector responses, Vector acceptances) {
+		
+		// Parking lots still silent after the deadline missed it, unless the round was closed early
+		if(RunAgents.isAdaptiveDeadlines() && !closedEarly) {
+			for(String parkingLotName : pendingAnswers) {
+				Logger.getInstance().log(Logger.LogLevel.WARN, Logger.LogCategory.NEGOTIATION, "{} missed the cfp deadline", parkingLotName);
+				ResponseTimeTracker.getInstance().recordMiss(parkingLotName);
+			}
+		}
 
 		int bestProposal = Integer.MAX_VALUE;
 		int bestProposerI = 0;
@@ -175,45 +237,79 @@ public class CarBehavior extends ContractNetInitiator {
 			ACLMessage msg = (ACLMessage) responses.get(i);
 			if(msg.getPerformative() == ACLMessage.PROPOSE) {
 				
+				// Replies carry a plain spot type name or no content, not the proposal's encoding
 				ACLMessage reply = msg.createReply();
 				reply.setPerformative(ACLMessage.REJECT_PROPOSAL);
+				reply.setLanguage(null);
 				acceptances.addElement(reply);
 
 				// Evaluate proposal using the agent's evaluator (personality)
 				CarEvaluator eval = agent.getEval();
 				eval.setProposal(getParkingLotProposal(msg));
-				int proposal = eval.evaluateProposal(msg);
+				String proposerName = msg.getSender().getLocalName();
+				int proposal = eval.evaluateProposal(proposerName);
 				
-				// Lower values are better since cost and distance are both best when minimised
+				// Lower values are better since cost and distance are both best when minimised, the value is only boxed for logging if enabled
+				boolean logEvaluation = Logger.getInstance().isEnabled(Logger.LogLevel.DEBUG, Logger.LogCategory.EVALUATION);
 				if((proposal != 0) && (proposal < bestProposal)) {
-					Logger.getInstance().logPrint("New best proposal by " + msg.getSender().getLocalName() + " evaluated at " + proposal);
+					if(logEvaluation) Logger.getInstance().logPrint("New best proposal by " + proposerName + " evaluated at " + proposal);
 					bestProposal = proposal;
 					bestProposer = msg.getSender();
 					bestProposerI = i;
 					accept = reply;
-				} else Logger.getInstance().logPrint("Worse proposal by " + msg.getSender().getLocalName() + " evaluated at " + proposal);
+				} else if(logEvaluation) Logger.getInstance().logPrint("Worse proposal by " + proposerName + " evaluated at " + proposal);
 			}
 		}
 		
 		// Accept the proposal of the best proposer
 		if(accept != null) {
-			carToCSV(calcSatisfaction(bestProposal));
+			// Satisfaction is only recorded once the parking lot confirms the spot
+			acceptedSatisfaction = agent.calcSatisfaction(bestProposal);
 			
-			Logger.getInstance().logPrint("Accepting proposal of " + bestProposer.getLocalName());
+			Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.NEGOTIATION, "Accepting proposal of {}", bestProposer.getLocalName());
 			accept.setPerformative(ACLMessage.ACCEPT_PROPOSAL);
+			accepted = true;
 			accept.setContent(selectSpot(getParkingLotProposal((ACLMessage) responses.get(bestProposerI))).name());
-		// All proposals rejected, exit queue
+		// None of the nearest parking lots could be accepted, try the next ones
+		} else if(agent.widenSearch()) {
+			widened = true;
+			Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.NEGOTIATION, "Rejected all proposals of the nearest parking lots");
+		// All proposals rejected, end turn
 		} else {
-			carToCSV(0);
-			Logger.getInstance().logPrint("Rejected all proposals");
-			removeFromQueue();
+			agent.carToCSV(0);
+			Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.NEGOTIATION, "Rejected all proposals");
+			endTurn();
+		}
+	}
+	
+	@Override
+	protected void handleOutOfSequence(ACLMessage msg) {
+		
+		// Proposals arriving after closing early are rejected so that spot holds are released
+		if(msg.getPerformative() == ACLMessage.PROPOSE) {
+			ACLMessage reject = msg.createReply();
+			reject.setPerformative(ACLMessage.REJECT_PROPOSAL);
+			reject.setLanguage(null);
+			myAgent.send(reject);
 		}
 	}
 	
 	@Override
 	protected void handleInform(ACLMessage inform) {
 
-		Logger.getInstance().logPrint("negotiation with " + inform.getSender().getLocalName() + " ended");
-		removeFromQueue();
+		Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.NEGOTIATION, "negotiation with {} ended", inform.getSender().getLocalName());
+		agent.carToCSV(acceptedSatisfaction);
+		endTurn();
+	}
+	
+	@Override
+	protected void handleAllResultNotifications(Vector resultNotifications) {
+		
+		// Only sent rejections before widening the search, the wider round is still negotiating
+		if(widened) return;
+		
+		// Also ends the turn when the accepted parking lot didn't reply in time, in which case the car did not park
+		if(accepted && resultNotifications.isEmpty()) agent.carToCSV(0);
+		endTurn();
 	}
 }
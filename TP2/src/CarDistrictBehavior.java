@@ -0,0 +1,88 @@
+import java.util.ArrayList;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.core.behaviours.SimpleBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+
+public class CarDistrictBehavior extends SimpleBehaviour {
+
+	private static final long serialVersionUID = -6263957913410954718L;
+
+	CarAgent agent;
+	
+	private int pendingDistricts;
+	private ArrayList<Integer> candidates = new ArrayList<Integer>();
+	private MessageTemplate template;
+	
+	/**
+	 * Constructs a car behaviour responsible for asking every district agent which of its parking lots
+	 * could satisfy the car agent. Once all districts answered the car agent sends its cfp to those
+	 * parking lots only.
+	 * 
+	 * @param a the car agent
+	 */
+	public CarDistrictBehavior(Agent a) {
+		super(a);
+		this.agent = (CarAgent) a;
+	}
+	
+	@Override
+	public void onStart() {
+		
+		ArrayList<String> districts = RunAgents.getDistrictNames();
+		String conversationId = myAgent.getLocalName() + "-lookup-" + System.currentTimeMillis();
+		template = MessageTemplate.and(
+				MessageTemplate.MatchOntology(DistrictAgent.districtOntology),
+				MessageTemplate.MatchConversationId(conversationId));
+		
+		ACLMessage msg = new ACLMessage(ACLMessage.QUERY_REF);
+		msg.setOntology(DistrictAgent.districtOntology);
+		msg.setConversationId(conversationId);
+		for(String district : districts) {
+			msg.addReceiver(new AID(district, AID.ISLOCALNAME));
+		}
+		
+		ProposalCodec.setContent(msg, agent.getTerms());
+		
+		// Without districts there is nothing to look up
+		pendingDistricts = districts.size();
+		if(pendingDistricts == 0) {
+			agent.contractNetInitiate(candidates);
+			return;
+		}
+		
+		myAgent.send(msg);
+	}
+
+	@Override
+	public void action() {
+		
+		if(pendingDistricts == 0) return;
+		
+		ACLMessage msg = myAgent.receive(template);
+		if(msg == null) {
+			block();
+			return;
+		}
+		
+		if(!msg.getContent().isEmpty()) {
+			for(String parkingLotName : msg.getContent().split(",")) {
+				candidates.add(RunAgents.getParkingLotIndex(parkingLotName));
+			}
+		}
+		
+		// Districts answered, negotiate with the parking lots they found
+		pendingDistricts--;
+		if(pendingDistricts == 0) {
+			Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.NEGOTIATION, "Districts found {} parking lots able to satisfy the car", candidates.size());
+			agent.contractNetInitiate(candidates);
+		}
+	}
+
+	@Override
+	public boolean done() {
+		return pendingDistricts == 0;
+	}
+}
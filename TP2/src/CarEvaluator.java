@@ -1,32 +1,52 @@
 import java.awt.Point;
 
-import jade.lang.acl.ACLMessage;
-
 public abstract class CarEvaluator {
 
-	CarAgent agent;
+	CarAgentProposal car;
 	ParkingLotProposal proposal;
 	int type;
 	
 	/**
 	 * Constructs a car evaluator object responsible for assigning a value to
-	 * parking lot proposals.
+	 * parking lot proposals. Evaluators only rely on the car agent terms so that
+	 * they can be used away from the car agent itself.
 	 * 
-	 * @param agent the evaluating car agent
+	 * @param car the terms of the evaluating car agent
+	 * @param type the car evaluator type
 	 */
-	public CarEvaluator(CarAgent agent, int type) {
-		this.agent = agent;
+	public CarEvaluator(CarAgentProposal car, int type) {
+		this.car = car;
 		this.type = type;
 	}
+	
+	/**
+	 * Creates the car evaluator of the type given in the car agent terms.
+	 * 
+	 * @param car the terms of the evaluating car agent
+	 * @return the evaluator object to use
+	 */
+	public static CarEvaluator createEvaluator(CarAgentProposal car) {
+		
+		switch(car.getEvaluatorType()) {
+		case 1:
+			return new LowerCostCarEvaluator(car);
+		case 2:
+			return new LowerDistanceCarEvaluator(car);
+		case 3:
+			return new FlexibleCarEvaluator(car);
+		default:
+			return new StrictCarEvaluator(car);
+		}
+	}
 
 	/**
 	 * Returns an integer value representing how good a parking lot agent
 	 * proposal. 0 is used as an automatic rejection.
 	 * 
-	 * @param proposeMsg the parking lot agent proposal
+	 * @param proposer the local name of the parking lot agent that sent the proposal
 	 * @return the value associated with the proposal
 	 */
-	protected abstract int evaluateProposal(ACLMessage proposeMsg);
+	protected abstract int evaluateProposal(String proposer);
 		
 	/**
 	 * Returns the rounded euclidean distance between 2 points.
@@ -38,7 +58,61 @@ public abstract class CarEvaluator {
 	protected int distanceToParking(Point carCoords, Point parkingLotCoords) {
 		return (int) carCoords.distance(parkingLotCoords);
 	}
+	
+	/**
+	 * Returns the furthest rounded distance at which an evaluator of the given type may still
+	 * accept a parking lot proposal. Evaluators that ignore distance have unlimited reach.
+	 * 
+	 * @param type the car evaluator type
+	 * @param maxDistance the max distance tolerated by the car agent
+	 * @return the reach of the evaluator
+	 */
+	public static int calcReach(int type, int maxDistance) {
+		
+		switch(type) {
+		case 1:
+			return Integer.MAX_VALUE;
+		case 3:
+			return (int) Math.ceil(maxDistance * (1 + FlexibleCarEvaluator.margin));
+		default:
+			return maxDistance;
+		}
+	}
+	
+	/**
+	 * Returns the highest hourly cost an evaluator of the given type may still accept in a
+	 * parking lot proposal. Evaluators that ignore cost have no cost limit.
+	 * 
+	 * @param type the car evaluator type
+	 * @param maxHourlyCost the max hourly cost tolerated by the car agent
+	 * @return the cost limit of the evaluator
+	 */
+	public static int calcCostLimit(int type, int maxHourlyCost) {
+		
+		switch(type) {
+		case 2:
+			return Integer.MAX_VALUE;
+		case 3:
+			return (int) Math.ceil(maxHourlyCost * (1 + FlexibleCarEvaluator.margin));
+		default:
+			return maxHourlyCost;
+		}
+	}
+	
+	/**
+	 * @return the reach of this evaluator
+	 */
+	public int getReach() {
+		return calcReach(type, car.getMaxDistance());
+	}
 
+	/**
+	 * @return whether the nearest parking lots are the best candidates for this evaluator
+	 */
+	public boolean prefersNearest() {
+		return false;
+	}
+	
 	/**
 	 * @return the behaviour of the car agent
 	 */
@@ -0,0 +1,47 @@
+import jade.core.Agent;
+import jade.core.behaviours.SimpleBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+
+public class CarTurnBehavior extends SimpleBehaviour {
+
+	private static final long serialVersionUID = -4409871352470120655L;
+	
+	CarAgent agent;
+	
+	private boolean myTurn = false;
+	private MessageTemplate template = MessageTemplate.and(
+			MessageTemplate.MatchOntology(QueueCoordinatorAgent.turnOntology),
+			MessageTemplate.MatchPerformative(ACLMessage.INFORM));
+	
+	/**
+	 * Constructs a car behaviour responsible for waiting until the queue coordinator
+	 * gives this car agent its turn to negotiate. The behaviour stays blocked without
+	 * holding the agent's thread until the turn message arrives.
+	 * 
+	 * @param a the car agent
+	 */
+	public CarTurnBehavior(Agent a) {
+		super(a);
+		this.agent = (CarAgent) a;
+	}
+
+	@Override
+	public void action() {
+		
+		ACLMessage msg = myAgent.receive(template);
+		if(msg == null) {
+			block();
+			return;
+		}
+		
+		Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.NEGOTIATION, "my turn");
+		myTurn = true;
+		agent.startNegotiation();
+	}
+
+	@Override
+	public boolean done() {
+		return myTurn;
+	}
+}
@@ -0,0 +1,47 @@
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.lang.acl.UnreadableException;
+
+public class CarVacancyBehavior extends CyclicBehaviour {
+
+	private static final long serialVersionUID = 4913287640592216035L;
+
+	CarAgent agent;
+	
+	private MessageTemplate template = MessageTemplate.and(
+			MessageTemplate.MatchOntology(VacancyBoardAgent.boardOntology),
+			MessageTemplate.or(
+					MessageTemplate.MatchPerformative(ACLMessage.AGREE),
+					MessageTemplate.MatchPerformative(ACLMessage.INFORM)));
+	
+	/**
+	 * Constructs a car behaviour responsible for keeping the car agent's replica of the vacancy board
+	 * up to date, starting from the snapshot agreed on subscription and applying every change pushed after.
+	 * 
+	 * @param a the car agent
+	 */
+	public CarVacancyBehavior(Agent a) {
+		super(a);
+		this.agent = (CarAgent) a;
+	}
+
+	@Override
+	public void action() {
+		
+		ACLMessage msg = myAgent.receive(template);
+		if(msg == null) {
+			block();
+			return;
+		}
+		
+		try {
+			agent.applyVacancyUpdate((VacancyUpdate) msg.getContentObject());
+		} catch(UnreadableException e) {
+			e.printStackTrace();
+			System.err.println("Error occured during the decoding of the content of the ACLMessage!");
+			System.exit(1);
+		}
+	}
+}
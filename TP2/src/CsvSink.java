@@ -0,0 +1,128 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class CsvSink implements Runnable {
+
+	// Sink parameters, rows are written once this many bytes are buffered or the oldest row waited this long
+	private static final int flushSize = 64 * 1024;
+	private static final long flushInterval = 1000;
+	
+	private FileChannel channel;
+	private StringBuilder rows = new StringBuilder(flushSize);
+	private long oldestRowTime;
+	private boolean closed = false;
+	
+	/**
+	 * Opens a CSV file for appending and keeps it open for the whole run, writing the header
+	 * only if the file is empty.
+	 * 
+	 * @param filepath the path of the CSV file
+	 * @param header the header of the CSV file
+	 */
+	public CsvSink(String filepath, String header) {
+		
+		try {
+			channel = FileChannel.open(Paths.get(filepath), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+			if(channel.size() == 0) addRow(header);
+		} catch(IOException e) {
+			e.printStackTrace();
+			System.err.println("Could not open CSV file!");
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Starts the thread flushing rows that waited too long and makes the JVM flush the remaining
+	 * rows and close the file before exiting.
+	 */
+	public void start() {
+		
+		Thread thread = new Thread(this, "CsvSink");
+		thread.setDaemon(true);
+		thread.start();
+		
+		Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+	}
+	
+	/**
+	 * Buffers a row, writing the buffered rows once they reach the flush size.
+	 * 
+	 * @param row the row without line separator
+	 */
+	public synchronized void addRow(String row) {
+		
+		if(closed) return;
+		
+		if(rows.length() == 0) oldestRowTime = System.currentTimeMillis();
+		rows.append(row).append(System.lineSeparator());
+		
+		if(rows.length() >= flushSize) flush();
+	}
+	
+	@Override
+	public void run() {
+		
+		while(true) {
+			
+			try {
+				Thread.sleep(flushInterval);
+			} catch(InterruptedException e) {
+				e.printStackTrace();
+				System.err.println("CSV sink interrupted!");
+				System.exit(1);
+			}
+			
+			flushIfStale();
+		}
+	}
+	
+	/**
+	 * Writes the buffered rows if the oldest of them waited at least the flush interval.
+	 */
+	private synchronized void flushIfStale() {
+		
+		if(rows.length() > 0 && System.currentTimeMillis() - oldestRowTime >= flushInterval) flush();
+	}
+	
+	/**
+	 * Writes the buffered rows to the file in one go.
+	 */
+	private void flush() {
+		
+		if(rows.length() == 0) return;
+		
+		ByteBuffer bytes = ByteBuffer.wrap(rows.toString().getBytes(StandardCharsets.UTF_8));
+		rows.setLength(0);
+		
+		try {
+			while(bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+		} catch(IOException e) {
+			System.out.println("IO exception on CSV write");
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Writes the remaining rows and closes the file, rows added afterwards are discarded.
+	 */
+	private synchronized void close() {
+		
+		if(closed) return;
+		
+		flush();
+		closed = true;
+		
+		try {
+			channel.close();
+		} catch(IOException e) {
+			System.out.println("IO exception on CSV close");
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,116 @@
+import java.util.Arrays;
+
+public class DepartureHeap {
+
+	private static final int initialCapacity = 16;
+	
+	// Binary min-heap on departure time kept in parallel primitive arrays
+	private long[] times = new long[initialCapacity];
+	private int[] slots = new int[initialCapacity];
+	private int[] carIds = new int[initialCapacity];
+	private int size = 0;
+	
+	/**
+	 * Adds a departure to the heap, growing it if full.
+	 * 
+	 * @param time the time in milliseconds the car agent departs
+	 * @param slot the slot the car agent occupies
+	 * @param carId the ID of the car agent
+	 */
+	public void push(long time, int slot, int carId) {
+		
+		if(size == times.length) {
+			times = Arrays.copyOf(times, size * 2);
+			slots = Arrays.copyOf(slots, size * 2);
+			carIds = Arrays.copyOf(carIds, size * 2);
+		}
+		
+		// Sift up from the new leaf
+		int i = size++;
+		while(i > 0) {
+			
+			int parent = (i - 1) / 2;
+			if(times[parent] <= time) break;
+			
+			move(parent, i);
+			i = parent;
+		}
+		
+		set(i, time, slot, carId);
+	}
+	
+	/**
+	 * Removes the earliest departure from the heap.
+	 */
+	public void pop() {
+		
+		size--;
+		if(size == 0) return;
+		
+		// Sift the last entry down from the root
+		long time = times[size];
+		int slot = slots[size];
+		int carId = carIds[size];
+		
+		int i = 0;
+		while(2 * i + 1 < size) {
+			
+			int child = 2 * i + 1;
+			if(child + 1 < size && times[child + 1] < times[child]) child++;
+			if(time <= times[child]) break;
+			
+			move(child, i);
+			i = child;
+		}
+		
+		set(i, time, slot, carId);
+	}
+	
+	/**
+	 * @param from the index of the entry to move
+	 * @param to the index to move the entry to
+	 */
+	private void move(int from, int to) {
+		set(to, times[from], slots[from], carIds[from]);
+	}
+	
+	/**
+	 * @param i the index of the entry
+	 * @param time the time in milliseconds the car agent departs
+	 * @param slot the slot the car agent occupies
+	 * @param carId the ID of the car agent
+	 */
+	private void set(int i, long time, int slot, int carId) {
+		times[i] = time;
+		slots[i] = slot;
+		carIds[i] = carId;
+	}
+	
+	/**
+	 * @return whether there are no departures left
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	/**
+	 * @return the time in milliseconds of the earliest departure
+	 */
+	public long getMinTime() {
+		return times[0];
+	}
+	
+	/**
+	 * @return the slot of the earliest departure
+	 */
+	public int getMinSlot() {
+		return slots[0];
+	}
+	
+	/**
+	 * @return the car agent ID of the earliest departure
+	 */
+	public int getMinCarId() {
+		return carIds[0];
+	}
+}
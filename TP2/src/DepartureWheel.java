@@ -0,0 +1,160 @@
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class DepartureWheel implements Runnable {
+
+	// Wheel parameters, each level has as many buckets and each bucket spans a whole turn of the level below
+	private static final long tickLength = 100;
+	private static final int bucketBits = 6;
+	private static final int bucketsPerLevel = 1 << bucketBits;
+	private static final int bucketMask = bucketsPerLevel - 1;
+	private static final int levels = 4;
+	private static final long maxTicks = 1L << (bucketBits * levels);
+	
+	private static DepartureWheel singleton = new DepartureWheel();
+	
+	// Timers scheduled by parking lot agents, moved into the buckets by the wheel thread on each tick
+	private ConcurrentLinkedQueue<ParkingLotTimer> scheduled = new ConcurrentLinkedQueue<ParkingLotTimer>();
+	
+	// Buckets only touched by the wheel thread
+	private ArrayList<ArrayList<ArrayList<ParkingLotTimer>>> buckets = new ArrayList<ArrayList<ArrayList<ParkingLotTimer>>>();
+	private ArrayList<ParkingLotTimer> cascading = new ArrayList<ParkingLotTimer>();
+	private long startTime;
+	private long currentTick;
+	
+	/**
+	 * Private constructor for singleton pattern.
+	 */
+	private DepartureWheel() {
+		
+		for(int level = 0; level < levels; level++) {
+			
+			ArrayList<ArrayList<ParkingLotTimer>> levelBuckets = new ArrayList<ArrayList<ParkingLotTimer>>();
+			for(int i = 0; i < bucketsPerLevel; i++) {
+				levelBuckets.add(new ArrayList<ParkingLotTimer>());
+			}
+			
+			buckets.add(levelBuckets);
+		}
+	}
+	
+	/**
+	 * @return the singleton instance of the class
+	 */
+	public static DepartureWheel getInstance( ) {
+		return singleton;
+	}
+	
+	/**
+	 * Starts the wheel thread, ticks are counted from now.
+	 */
+	public void start() {
+		
+		startTime = System.currentTimeMillis();
+		
+		Thread thread = new Thread(this, "DepartureWheel");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * Schedules a parking lot timer to run once its delay has elapsed, rounded up to the next tick.
+	 * Scheduling only queues the timer, it is placed in its bucket by the wheel thread on the next tick.
+	 * 
+	 * @param timer the parking lot timer
+	 * @param delay the delay in milliseconds
+	 */
+	public void schedule(ParkingLotTimer timer, long delay) {
+		
+		timer.setDeadline(System.currentTimeMillis() + delay);
+		scheduled.add(timer);
+	}
+	
+	@Override
+	public void run() {
+		
+		while(true) {
+			
+			// Sleep until the next tick is due, catching up on ticks without sleeping if behind
+			long sleepTime = startTime + (currentTick + 1) * tickLength - System.currentTimeMillis();
+			if(sleepTime > 0) {
+				try {
+					Thread.sleep(sleepTime);
+				} catch(InterruptedException e) {
+					e.printStackTrace();
+					System.err.println("Departure wheel interrupted!");
+					System.exit(1);
+				}
+			}
+			
+			tick();
+		}
+	}
+	
+	/**
+	 * Advances the wheel one tick. When the level below completes a turn, the next bucket of a level
+	 * is cascaded into the lower levels. Newly scheduled timers are then placed and the timers of
+	 * the current level 0 bucket are run in one batch, each on its own virtual thread if enabled.
+	 */
+	private void tick() {
+		
+		currentTick++;
+		
+		for(int level = 1; level < levels; level++) {
+			
+			if((currentTick & ((1L << (bucketBits * level)) - 1)) != 0) break;
+			cascade(level, (int) (currentTick >>> (bucketBits * level)) & bucketMask);
+		}
+		
+		ParkingLotTimer timer;
+		while((timer = scheduled.poll()) != null) {
+			place(timer);
+		}
+		
+		ArrayList<ParkingLotTimer> due = buckets.get(0).get((int) currentTick & bucketMask);
+		for(ParkingLotTimer dueTimer : due) {
+			SimulationThreads.dispatch(dueTimer).run();
+		}
+		
+		due.clear();
+	}
+	
+	/**
+	 * Moves the timers of a bucket back into the wheel, closer to the level they expire from.
+	 * 
+	 * @param level the level of the bucket
+	 * @param index the index of the bucket
+	 */
+	private void cascade(int level, int index) {
+		
+		ArrayList<ParkingLotTimer> bucket = buckets.get(level).get(index);
+		cascading.addAll(bucket);
+		bucket.clear();
+		
+		for(ParkingLotTimer timer : cascading) {
+			place(timer);
+		}
+		
+		cascading.clear();
+	}
+	
+	/**
+	 * Places a timer in the bucket of the lowest level whose turn covers its deadline. Timers already
+	 * due go into the current bucket and timers beyond the last level wait in its farthest bucket.
+	 * 
+	 * @param timer the parking lot timer
+	 */
+	private void place(ParkingLotTimer timer) {
+		
+		long deadlineTick = Math.max((timer.getDeadline() - startTime + tickLength - 1) / tickLength, currentTick);
+		long ticks = Math.min(deadlineTick - currentTick, maxTicks - 1);
+		long placedTick = currentTick + ticks;
+		
+		int level = 0;
+		while(ticks >= (1L << (bucketBits * (level + 1)))) {
+			level++;
+		}
+		
+		buckets.get(level).get((int) (placedTick >>> (bucketBits * level)) & bucketMask).add(timer);
+	}
+}
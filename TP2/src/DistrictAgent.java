@@ -0,0 +1,88 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jade.core.Agent;
+
+public class DistrictAgent extends Agent {
+
+	private static final long serialVersionUID = -2391687047815824476L;
+	
+	// District messages
+	public static final String districtPrefix = "District";
+	public static final String districtOntology = "district-lookup";
+	
+	// District agent argument indices
+	private static final int zoneI = 0;
+	
+	private int zone;
+	private LinkedHashMap<String, ParkingLotStatus> parkingLots = new LinkedHashMap<String, ParkingLotStatus>();
+	
+	// Aggregated over every parking lot of the district
+	private int spotMask = 0;
+	private int minHourlyCost = Integer.MAX_VALUE;
+	
+	public void setup() {
+		
+		ProposalHandles.getInstance().addLocalAgent(getName());
+		
+		zone = (int) this.getArguments()[zoneI];
+		Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.SYSTEM, "District {} started", zone);
+		
+		addBehaviour(new DistrictBehavior(this));
+	}
+	
+	/**
+	 * Stores the latest status of a parking lot in the district and updates the aggregated
+	 * vacancy and hourly cost bounds of the district.
+	 * 
+	 * @param parkingLotName the local name of the parking lot agent
+	 * @param status the parking lot status
+	 */
+	public void updateStatus(String parkingLotName, ParkingLotStatus status) {
+		
+		parkingLots.put(parkingLotName, status);
+		
+		spotMask = 0;
+		minHourlyCost = Integer.MAX_VALUE;
+		for(ParkingLotStatus lot : parkingLots.values()) {
+			spotMask |= lot.getSpotMask();
+			minHourlyCost = Math.min(minHourlyCost, lot.calcMinHourlyCost());
+		}
+	}
+	
+	/**
+	 * Finds the parking lots of the district whose proposal the car agent would accept given their
+	 * current vacancy. The whole district is skipped when its aggregated bounds already rule it out.
+	 * 
+	 * @param terms the terms of the car agent
+	 * @return the local names of the parking lots worth sending a cfp to
+	 */
+	public ArrayList<String> findCandidates(CarAgentProposal terms) {
+		
+		ArrayList<String> candidates = new ArrayList<String>();
+		
+		int desiredMask = ParkingLotAgent.toSpotMask(terms.getDesiredSpots());
+		int costLimit = CarEvaluator.calcCostLimit(terms.getEvaluatorType(), terms.getMaxHourlyCost());
+		if((spotMask & desiredMask) == 0 || minHourlyCost > costLimit) return candidates;
+		
+		CarEvaluator eval = CarEvaluator.createEvaluator(terms);
+		for(Map.Entry<String, ParkingLotStatus> entry : parkingLots.entrySet()) {
+			
+			if((entry.getValue().getSpotMask() & desiredMask) == 0) continue;
+			
+			eval.setProposal(entry.getValue().toProposal());
+			if(eval.evaluateProposal(entry.getKey()) != 0) candidates.add(entry.getKey());
+		}
+		
+		return candidates;
+	}
+	
+	/**
+	 * @param zone the zone of the district
+	 * @return the local name of the district agent
+	 */
+	public static String getDistrictName(int zone) {
+		return districtPrefix + zone;
+	}
+}
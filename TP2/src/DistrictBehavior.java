@@ -0,0 +1,55 @@
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.lang.acl.UnreadableException;
+
+public class DistrictBehavior extends CyclicBehaviour {
+
+	private static final long serialVersionUID = 5870390286329513184L;
+
+	DistrictAgent agent;
+	
+	private MessageTemplate template = MessageTemplate.MatchOntology(DistrictAgent.districtOntology);
+	
+	/**
+	 * Constructs a district behaviour responsible for receiving the status updates of the district's
+	 * parking lots and answering car agent lookups with the parking lots able to satisfy them.
+	 * 
+	 * @param a the district agent
+	 */
+	public DistrictBehavior(Agent a) {
+		super(a);
+		this.agent = (DistrictAgent) a;
+	}
+
+	@Override
+	public void action() {
+		
+		ACLMessage msg = myAgent.receive(template);
+		if(msg == null) {
+			block();
+			return;
+		}
+		
+		try {
+			switch(msg.getPerformative()) {
+			case ACLMessage.INFORM:
+				agent.updateStatus(msg.getSender().getLocalName(), (ParkingLotStatus) msg.getContentObject());
+				break;
+			case ACLMessage.QUERY_REF:
+				ACLMessage reply = msg.createReply();
+				reply.setPerformative(ACLMessage.INFORM);
+				reply.setContent(String.join(",", agent.findCandidates(ProposalCodec.getCarAgentProposal(msg))));
+				myAgent.send(reply);
+				break;
+			default:
+				break;
+			}
+		} catch(UnreadableException e) {
+			e.printStackTrace();
+			System.err.println("Error occured during the decoding of the content of the ACLMessage!");
+			System.exit(1);
+		}
+	}
+}
@@ -1,8 +1,6 @@
-import jade.lang.acl.ACLMessage;
-
 public class FlexibleCarEvaluator extends CarEvaluator {
 
-	private static final float margin = 0.3f;
+	static final float margin = 0.3f;
 	
 	/**
 	 * Constructs a car evaluator object responsible for assigning a value to
@@ -10,18 +8,23 @@ public class FlexibleCarEvaluator extends CarEvaluator {
 	 * cost possible by checking the combined value of each proposal. Additionally
 	 * this evaluator has a margin up to which it doesn't reject proposals.
 	 * 
-	 * @param agent the evaluating car agent
+	 * @param car the terms of the evaluating car agent
 	 */
-	public FlexibleCarEvaluator(CarAgent agent) {
-		super(agent, 3);
+	public FlexibleCarEvaluator(CarAgentProposal car) {
+		super(car, 3);
+	}
+	
+	@Override
+	public boolean prefersNearest() {
+		return true;
 	}
 	
 	@Override
-	protected int evaluateProposal(ACLMessage proposeMsg) {
+	protected int evaluateProposal(String proposer) {
 		
 		// Check distance to parking lot
-		int dist = distanceToParking(agent.getCoords(), proposal.getCoords());
-		int agentDist = agent.getMaxDistance();
+		int dist = distanceToParking(car.getCoords(), proposal.getCoords());
+		int agentDist = car.getMaxDistance();
 		float overhead = 0;
 		
 		if(dist > agentDist) {
@@ -30,28 +33,32 @@ public class FlexibleCarEvaluator extends CarEvaluator {
 		
 		// Check if distance overhead went above margin
 		if(overhead > margin) {
-			Logger.getInstance().logPrint("Rejecting proposal of " + proposeMsg.getSender().getLocalName() + " because of distance overhead, margin was " + margin + " but overhead was " + overhead);
+			if(Logger.getInstance().isEnabled(Logger.LogLevel.DEBUG, Logger.LogCategory.EVALUATION)) {
+				Logger.getInstance().logPrint("Rejecting proposal of " + proposer + " because of distance overhead, margin was " + margin + " but overhead was " + overhead);
+			}
 			return 0;
 		}
 
 		// Verify hourly cost according to spot type desired by car agent, priority is REGULAR -> HANDICAP -> LUXURY
 		int cost = 0;
-		if(agent.isRegularSpot() && proposal.isHasRegular()) {
+		if(car.isRegularSpot() && proposal.isHasRegular()) {
 			cost = proposal.getHourlyCost();
-		} else if(agent.isHandicapSpot() && proposal.isHasHandicap()) {
+		} else if(car.isHandicapSpot() && proposal.isHasHandicap()) {
 			cost = proposal.getHourlyCost();
-		} else if(agent.isLuxurySpot() && proposal.isHasLuxury()) {
+		} else if(car.isLuxurySpot() && proposal.isHasLuxury()) {
 			cost = (int) Math.round(proposal.getHourlyCost() * proposal.getLuxuryCostPercent() / 100.0f);
 		}
 		
-		int agentCost = agent.getMaxHourlyCost();
+		int agentCost = car.getMaxHourlyCost();
 		if(cost > agentCost) {
 			overhead += (float) cost / (float) agentCost - 1;
 		}
 		
 		// Check if distance + cost overhead went above margin
 		if(overhead > margin) {
-			Logger.getInstance().logPrint("Rejecting proposal of " + proposeMsg.getSender().getLocalName() + " because of distance + cost overhead, margin was " + margin + " but overhead was " + overhead);
+			if(Logger.getInstance().isEnabled(Logger.LogLevel.DEBUG, Logger.LogCategory.EVALUATION)) {
+				Logger.getInstance().logPrint("Rejecting proposal of " + proposer + " because of distance + cost overhead, margin was " + margin + " but overhead was " + overhead);
+			}
 			return 0;
 		}
 		
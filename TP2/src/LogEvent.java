@@ -0,0 +1,40 @@
+public class LogEvent {
+
+	private long time;
+	private String threadName;
+	private String message;
+	
+	/**
+	 * Encapsulates a log message captured by a producer thread, formatted later by the log writer.
+	 * 
+	 * @param time the time in milliseconds the message was logged
+	 * @param threadName the name of the thread that logged the message
+	 * @param message the message logged
+	 */
+	public LogEvent(long time, String threadName, String message) {
+		this.time = time;
+		this.threadName = threadName;
+		this.message = message;
+	}
+
+	/**
+	 * @return the time in milliseconds the message was logged
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return the name of the thread that logged the message
+	 */
+	public String getThreadName() {
+		return threadName;
+	}
+
+	/**
+	 * @return the message logged
+	 */
+	public String getMessage() {
+		return message;
+	}
+}
@@ -0,0 +1,77 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class LogRingBuffer {
+
+	private int mask;
+	private AtomicReferenceArray<LogEvent> events;
+	
+	// Each slot's sequence tells whose turn it is, a producer when it equals the claiming position and the consumer when one past it
+	private AtomicLongArray sequences;
+	private AtomicLong tail = new AtomicLong();
+	private long head = 0;
+	
+	/**
+	 * Constructs a bounded lock-free ring buffer with many producers and a single consumer. Producers
+	 * claim a slot with a CAS on the tail and publish the event through the slot's sequence, the consumer
+	 * reads published slots in order and hands them back to producers one lap later.
+	 * 
+	 * @param capacity the number of slots, a power of 2
+	 */
+	public LogRingBuffer(int capacity) {
+		
+		mask = capacity - 1;
+		events = new AtomicReferenceArray<LogEvent>(capacity);
+		sequences = new AtomicLongArray(capacity);
+		
+		for(int i = 0; i < capacity; i++) {
+			sequences.set(i, i);
+		}
+	}
+	
+	/**
+	 * Adds an event to the buffer if there is room, safe to call from any thread.
+	 * 
+	 * @param event the event to add
+	 * @return whether the event was added, false if the buffer is full
+	 */
+	public boolean offer(LogEvent event) {
+		
+		while(true) {
+			
+			long position = tail.get();
+			int slot = (int) position & mask;
+			long sequence = sequences.get(slot);
+			
+			if(sequence == position) {
+				if(!tail.compareAndSet(position, position + 1)) continue;
+				
+				events.set(slot, event);
+				sequences.set(slot, position + 1);
+				return true;
+			}
+			
+			// The slot still holds the event from the previous lap
+			if(sequence < position) return false;
+		}
+	}
+	
+	/**
+	 * Removes the oldest event from the buffer, only called by the single consumer.
+	 * 
+	 * @return the oldest event or null if the buffer is empty
+	 */
+	public LogEvent poll() {
+		
+		int slot = (int) head & mask;
+		if(sequences.get(slot) != head + 1) return null;
+		
+		LogEvent event = events.get(slot);
+		events.set(slot, null);
+		sequences.set(slot, head + mask + 1);
+		head++;
+		
+		return event;
+	}
+}
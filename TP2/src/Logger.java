@@ -8,19 +8,26 @@ import java.nio.file.StandardOpenOption;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
 
 public class Logger {
 
 	// Enumerator classes for logging management
 	public enum LogMethod {CONSOLE, FILE, BOTH}
+	public enum OverflowPolicy {BLOCK, DROP, SAMPLE}
+	public enum LogLevel {DEBUG, INFO, WARN, ERROR}
+	public enum LogCategory {NEGOTIATION, EVALUATION, PARKING, SYSTEM}
 	
 	private static Logger singleton = new Logger();
 	
 	// CSV strings
 	private static String parkData = "";
-	private static String carData = "";
+	private static CsvSink csvSink;
 	
 	// Log management block
 	private static LogMethod logMethod = LogMethod.CONSOLE;
@@ -28,6 +35,20 @@ public class Logger {
 	private static final String consoleLogFormat = "%-18s - %s\n";
 	private static final String fileLogFormat = "%s - %-18s - %s";
 	
+	// Level and category gating of the leveled log calls, plain logPrint calls are always logged
+	private static final String patternArg = "{}";
+	private static LogLevel logLevel = LogLevel.DEBUG;
+	private static boolean[] enabledCategories = {true, true, true, true};
+	
+	// Asynchronous logging block, the ring buffer is null while logging synchronously
+	private static final int ringBufferCapacity = 8192;
+	private static final int overflowSampleRate = 16;
+	private static final long overflowWait = 50000;
+	private static LogRingBuffer ringBuffer;
+	private static OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+	private static AtomicLong overflowCount = new AtomicLong();
+	private static AtomicLong droppedCount = new AtomicLong();
+	
 	/**
 	 * Private constructor for singleton pattern.
 	 */
@@ -51,6 +72,151 @@ public class Logger {
 	    Logger.logMethod = logMethod;
 	}
 	
+	/**
+	 * Switches to asynchronous logging. Log calls then only capture the message into a bounded ring buffer
+	 * and a single writer thread formats and writes them in batches to the console and to a log file kept
+	 * open. When the buffer is full the overflow policy either blocks the logging thread until there is room,
+	 * drops the message or drops all but one in every few overflowing messages.
+	 * 
+	 * @param overflowPolicy the policy applied to messages logged while the buffer is full
+	 */
+	public void initAsyncLog(OverflowPolicy overflowPolicy) {
+		
+		createDirIfNotExists("./" + logFolder);
+		
+		boolean toConsole = logMethod.equals(LogMethod.CONSOLE) || logMethod.equals(LogMethod.BOTH);
+		boolean toFile = !logMethod.equals(LogMethod.CONSOLE);
+		
+		LogRingBuffer buffer = new LogRingBuffer(ringBufferCapacity);
+		new AsyncLogWriter(buffer, toConsole, toFile, "./" + logFolder + "/log.txt").start();
+		
+		Logger.overflowPolicy = overflowPolicy;
+		Logger.ringBuffer = buffer;
+	}
+	
+	/**
+	 * @return the number of messages dropped because the ring buffer was full
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+	
+	/**
+	 * @param logLevel the lowest level of the leveled log calls that are logged
+	 */
+	public void setLogLevel(LogLevel logLevel) {
+		Logger.logLevel = logLevel;
+	}
+	
+	/**
+	 * @param categories the categories of the leveled log calls that are logged
+	 */
+	public void setLogCategories(Collection<LogCategory> categories) {
+		
+		boolean[] enabled = new boolean[LogCategory.values().length];
+		for(LogCategory category : categories) {
+			enabled[category.ordinal()] = true;
+		}
+		
+		enabledCategories = enabled;
+	}
+	
+	/**
+	 * Checks whether a leveled log call would be logged, so that callers building messages from many
+	 * fields or from primitive values can skip building them altogether.
+	 * 
+	 * @param level the level of the message
+	 * @param category the category of the message
+	 * @return whether messages of the level and category are logged
+	 */
+	public boolean isEnabled(LogLevel level, LogCategory category) {
+		return level.ordinal() >= logLevel.ordinal() && enabledCategories[category.ordinal()];
+	}
+	
+	/**
+	 * Logs a message if its level and category are enabled.
+	 * 
+	 * @param level the level of the message
+	 * @param category the category of the message
+	 * @param message string to log
+	 */
+	public void log(LogLevel level, LogCategory category, String message) {
+		if(isEnabled(level, category)) logPrint(message);
+	}
+	
+	/**
+	 * Logs a message built by a supplier only called if the level and category are enabled.
+	 * 
+	 * @param level the level of the message
+	 * @param category the category of the message
+	 * @param message the supplier of the string to log
+	 */
+	public void log(LogLevel level, LogCategory category, Supplier<String> message) {
+		if(isEnabled(level, category)) logPrint(message.get());
+	}
+	
+	/**
+	 * Logs a message whose {} placeholder is replaced by the argument, only formatted if the level and category are enabled.
+	 * 
+	 * @param level the level of the message
+	 * @param category the category of the message
+	 * @param pattern the message pattern
+	 * @param arg the placeholder argument
+	 */
+	public void log(LogLevel level, LogCategory category, String pattern, Object arg) {
+		if(isEnabled(level, category)) logPrint(formatPattern(pattern, arg));
+	}
+	
+	/**
+	 * Logs a message whose {} placeholders are replaced by the arguments, only formatted if the level and category are enabled.
+	 * 
+	 * @param level the level of the message
+	 * @param category the category of the message
+	 * @param pattern the message pattern
+	 * @param arg1 the first placeholder argument
+	 * @param arg2 the second placeholder argument
+	 */
+	public void log(LogLevel level, LogCategory category, String pattern, Object arg1, Object arg2) {
+		if(isEnabled(level, category)) logPrint(formatPattern(pattern, arg1, arg2));
+	}
+	
+	/**
+	 * Logs a message whose {} placeholders are replaced by the arguments, only formatted if the level and category are enabled.
+	 * 
+	 * @param level the level of the message
+	 * @param category the category of the message
+	 * @param pattern the message pattern
+	 * @param arg1 the first placeholder argument
+	 * @param arg2 the second placeholder argument
+	 * @param arg3 the third placeholder argument
+	 */
+	public void log(LogLevel level, LogCategory category, String pattern, Object arg1, Object arg2, Object arg3) {
+		if(isEnabled(level, category)) logPrint(formatPattern(pattern, arg1, arg2, arg3));
+	}
+	
+	/**
+	 * Replaces the {} placeholders of a pattern by the arguments in order, extra placeholders are left as is.
+	 * 
+	 * @param pattern the message pattern
+	 * @param args the placeholder arguments
+	 * @return the formatted message
+	 */
+	private String formatPattern(String pattern, Object... args) {
+		
+		StringBuilder message = new StringBuilder(pattern.length() + 32);
+		int start = 0;
+		for(Object arg : args) {
+			
+			int placeholder = pattern.indexOf(patternArg, start);
+			if(placeholder < 0) break;
+			
+			message.append(pattern, start, placeholder).append(arg);
+			start = placeholder + patternArg.length();
+		}
+		
+		return message.append(pattern, start, pattern.length()).toString();
+	}
+	
 	/**
 	 * Creates directory specified by path if it doesn't already exist.
 	 * 
@@ -70,7 +236,41 @@ public class Logger {
 	 * 
 	 * @param message string to log
 	 */
-	public synchronized void logPrint(String message) {
+	public void logPrint(String message) {
+		
+		if(ringBuffer != null) {
+			logAsync(message);
+		} else logSync(message);
+	}
+	
+	/**
+	 * Adds a message to the ring buffer, applying the overflow policy if it is full.
+	 * 
+	 * @param message string to log
+	 */
+	private void logAsync(String message) {
+		
+		LogEvent event = new LogEvent(System.currentTimeMillis(), Thread.currentThread().getName(), message);
+		if(ringBuffer.offer(event)) return;
+		
+		// Sampling keeps one in every few overflowing messages, waiting for room for those like blocking does
+		if(overflowPolicy == OverflowPolicy.DROP
+				|| (overflowPolicy == OverflowPolicy.SAMPLE && overflowCount.getAndIncrement() % overflowSampleRate != 0)) {
+			droppedCount.incrementAndGet();
+			return;
+		}
+		
+		while(!ringBuffer.offer(event)) {
+			LockSupport.parkNanos(overflowWait);
+		}
+	}
+	
+	/**
+	 * Prints a message to the console and/or appends it to the log file from the calling thread.
+	 * 
+	 * @param message string to log
+	 */
+	private synchronized void logSync(String message) {
 
 		// Console printing handling
 		if(logMethod.equals(LogMethod.CONSOLE) || logMethod.equals(LogMethod.BOTH)) {
@@ -123,20 +323,6 @@ public class Logger {
 		}
 	}
 
-	/**
-	 * Sets the string for car data for later usage in CSV writing. For each call of this function, one should
-	 * exist to csvWrite() since car data changes between each round of the negotiation.
-	 * 
-	 * @param carZone the car's zone
-	 * @param carCost the car's maximum hourly cost
-	 * @param carDist the car's maximum distance
-	 * @param carType the car's behaviour type
-	 * @param satisfaction the car's satisfaction rating
-	 */
-	public synchronized void setCarCSVData(int carZone, int carCost, int carDist, int carType, float satisfaction) {
-		carData = carZone + ", " + carCost + ", " + carDist + ", " + carType + ", " + satisfaction;
-	}
-	
 	/**
 	 * @return the header to use for the CSV file for data mining
 	 */
@@ -149,43 +335,24 @@ public class Logger {
 	}
 
 	/**
-	 * Handles logging of agent interaction to a CSV file for later usage in Data Mining techniques.
+	 * Handles logging of agent interaction to a CSV file for later usage in Data Mining techniques. Rows are
+	 * buffered by a sink keeping the file open, which is opened on the first row and writes the header once.
+	 * The car data is built into the row here so that cars finishing concurrently each write their own row.
 	 * 
-	 * @param isHeader whether to print header or not
+	 * @param carZone the car's zone
+	 * @param carCost the car's maximum hourly cost
+	 * @param carDist the car's maximum distance
+	 * @param carType the car's behaviour type
+	 * @param satisfaction the car's satisfaction rating
 	 */
-	public synchronized void csvWrite() {
-
-		createDirIfNotExists("./" + logFolder);
-
-		// Create path for log file
-		String filepath = "./" + logFolder + "/log.csv";
-		File toCreate = new File(filepath);
-		Path toWrite = Paths.get(filepath);
+	public synchronized void csvWrite(int carZone, int carCost, int carDist, int carType, float satisfaction) {
 		
-		List<String> lines;
-		if(!toCreate.exists()) {
-			lines = Arrays.asList(writeHeader());
-			
-			// Create file only if it doesn't exist and append new lines to it
-			try {
-				toCreate.createNewFile();
-				Files.write(toWrite, lines, Charset.forName("UTF-8"), StandardOpenOption.APPEND);
-			} catch(IOException e) {
-				System.out.println("IO exception on log write");
-				e.printStackTrace();
-			}
-			
+		if(csvSink == null) {
+			createDirIfNotExists("./" + logFolder);
+			csvSink = new CsvSink("./" + logFolder + "/log.csv", writeHeader());
+			csvSink.start();
 		}
-
-		lines = Arrays.asList(parkData + carData);
 		
-		// Create file only if it doesn't exist and append new lines to it
-		try {
-			toCreate.createNewFile();
-			Files.write(toWrite, lines, Charset.forName("UTF-8"), StandardOpenOption.APPEND);
-		} catch(IOException e) {
-			System.out.println("IO exception on log write");
-			e.printStackTrace();
-		}
+		csvSink.addRow(parkData + carZone + ", " + carCost + ", " + carDist + ", " + carType + ", " + satisfaction);
 	}
 }
\ No newline at end of file
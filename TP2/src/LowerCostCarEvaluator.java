@@ -1,5 +1,3 @@
-import jade.lang.acl.ACLMessage;
-
 public class LowerCostCarEvaluator extends CarEvaluator {
 
 	/**
@@ -7,27 +5,27 @@ public class LowerCostCarEvaluator extends CarEvaluator {
 	 * parking lot proposals. This evaluator chooses the lowest hourly cost
 	 * available without considering the distance to the parking lot.
 	 * 
-	 * @param agent the evaluating car agent
+	 * @param car the terms of the evaluating car agent
 	 */
-	public LowerCostCarEvaluator(CarAgent agent) {
-		super(agent, 1);
+	public LowerCostCarEvaluator(CarAgentProposal car) {
+		super(car, 1);
 	}
 	
 	@Override
-	protected int evaluateProposal(ACLMessage proposeMsg) {
+	protected int evaluateProposal(String proposer) {
 		
 		// Verify hourly cost according to spot type desired by car agent, priority is REGULAR -> HANDICAP -> LUXURY
 		int cost = 0;
-		if(agent.isRegularSpot() && proposal.isHasRegular()) {
+		if(car.isRegularSpot() && proposal.isHasRegular()) {
 			cost = proposal.getHourlyCost();
-		} else if(agent.isHandicapSpot() && proposal.isHasHandicap()) {
+		} else if(car.isHandicapSpot() && proposal.isHasHandicap()) {
 			cost = proposal.getHourlyCost();
-		} else if(agent.isLuxurySpot() && proposal.isHasLuxury()) {
+		} else if(car.isLuxurySpot() && proposal.isHasLuxury()) {
 			cost = (int) Math.round(proposal.getHourlyCost() * proposal.getLuxuryCostPercent() / 100.0f);
 		}
 		
-		if(cost > agent.getMaxHourlyCost()) {
-			Logger.getInstance().logPrint("Rejecting proposal of " + proposeMsg.getSender().getLocalName() + " because of cost");
+		if(cost > car.getMaxHourlyCost()) {
+			Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.EVALUATION, "Rejecting proposal of {} because of cost", proposer);
 			return 0;
 		}
 		return cost;
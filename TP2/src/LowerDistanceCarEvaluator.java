@@ -1,5 +1,3 @@
-import jade.lang.acl.ACLMessage;
-
 public class LowerDistanceCarEvaluator extends CarEvaluator {
 
 	/**
@@ -7,19 +5,24 @@ public class LowerDistanceCarEvaluator extends CarEvaluator {
 	 * parking lot proposals. This evaluator chooses the lowest distance
 	 * available without considering the hourly cost of the parking lot.
 	 * 
-	 * @param agent the evaluating car agent
+	 * @param car the terms of the evaluating car agent
 	 */
-	public LowerDistanceCarEvaluator(CarAgent agent) {
-		super(agent, 2);
+	public LowerDistanceCarEvaluator(CarAgentProposal car) {
+		super(car, 2);
+	}
+	
+	@Override
+	public boolean prefersNearest() {
+		return true;
 	}
 	
 	@Override
-	protected int evaluateProposal(ACLMessage proposeMsg) {
+	protected int evaluateProposal(String proposer) {
 		
 		// Check distance to parking lot
-		int dist = distanceToParking(agent.getCoords(), proposal.getCoords());
-		if(dist > agent.getMaxDistance()) {
-			Logger.getInstance().logPrint("Rejecting proposal of " + proposeMsg.getSender().getLocalName() + " because of distance");
+		int dist = distanceToParking(car.getCoords(), proposal.getCoords());
+		if(dist > car.getMaxDistance()) {
+			Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.EVALUATION, "Rejecting proposal of {} because of distance", proposer);
 			return 0;
 		}
 		
@@ -0,0 +1,145 @@
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+public class MinCostFlow {
+
+	private int nodes;
+	private int edges = 0;
+	
+	// Edges are stored in pairs, edge e and its residual edge e ^ 1
+	private int[] head;
+	private int[] next = new int[16];
+	private int[] to = new int[16];
+	private int[] capacity = new int[16];
+	private long[] cost = new long[16];
+	
+	/**
+	 * Constructs a flow network solved with successive shortest augmenting paths. Edge costs
+	 * must not be negative. Used to assign car agents to parking lot spots in one pass.
+	 * 
+	 * @param nodes the number of nodes of the network
+	 */
+	public MinCostFlow(int nodes) {
+		this.nodes = nodes;
+		this.head = new int[nodes];
+		Arrays.fill(head, -1);
+	}
+	
+	/**
+	 * Adds a directed edge to the network.
+	 * 
+	 * @param from the origin node
+	 * @param dest the destination node
+	 * @param cap the edge capacity
+	 * @param edgeCost the cost per unit of flow
+	 * @return the edge index, to query its flow after solving
+	 */
+	public int addEdge(int from, int dest, int cap, long edgeCost) {
+		
+		if(edges + 2 > to.length) {
+			int size = to.length * 2;
+			next = Arrays.copyOf(next, size);
+			to = Arrays.copyOf(to, size);
+			capacity = Arrays.copyOf(capacity, size);
+			cost = Arrays.copyOf(cost, size);
+		}
+		
+		int edge = edges;
+		link(from, dest, cap, edgeCost);
+		link(dest, from, 0, -edgeCost);
+		
+		return edge;
+	}
+	
+	/**
+	 * Stores one direction of an edge.
+	 * 
+	 * @param from the origin node
+	 * @param dest the destination node
+	 * @param cap the edge capacity
+	 * @param edgeCost the cost per unit of flow
+	 */
+	private void link(int from, int dest, int cap, long edgeCost) {
+		
+		to[edges] = dest;
+		capacity[edges] = cap;
+		cost[edges] = edgeCost;
+		next[edges] = head[from];
+		head[from] = edges;
+		edges++;
+	}
+	
+	/**
+	 * Sends the maximum flow from source to sink at the minimum total cost. Uses Dijkstra
+	 * with node potentials so that residual edge costs stay non negative.
+	 * 
+	 * @param source the source node
+	 * @param sink the sink node
+	 * @return the total cost of the flow sent
+	 */
+	public long solve(int source, int sink) {
+		
+		long totalCost = 0;
+		long[] potential = new long[nodes];
+		long[] dist = new long[nodes];
+		int[] prevEdge = new int[nodes];
+		
+		while(true) {
+			
+			// Shortest path on reduced costs
+			Arrays.fill(dist, Long.MAX_VALUE);
+			Arrays.fill(prevEdge, -1);
+			dist[source] = 0;
+			
+			PriorityQueue<long[]> queue = new PriorityQueue<long[]>((a, b) -> Long.compare(a[0], b[0]));
+			queue.add(new long[] {0, source});
+			
+			while(!queue.isEmpty()) {
+				
+				long[] curr = queue.poll();
+				int node = (int) curr[1];
+				if(curr[0] > dist[node]) continue;
+				
+				for(int e = head[node]; e != -1; e = next[e]) {
+					
+					if(capacity[e] <= 0) continue;
+					
+					long reduced = dist[node] + cost[e] + potential[node] - potential[to[e]];
+					if(reduced < dist[to[e]]) {
+						dist[to[e]] = reduced;
+						prevEdge[to[e]] = e;
+						queue.add(new long[] {reduced, to[e]});
+					}
+				}
+			}
+			
+			if(dist[sink] == Long.MAX_VALUE) break;
+			
+			for(int i = 0; i < nodes; i++) {
+				if(dist[i] != Long.MAX_VALUE) potential[i] += dist[i];
+			}
+			
+			// Find bottleneck and augment along the path
+			int flow = Integer.MAX_VALUE;
+			for(int node = sink; node != source; node = to[prevEdge[node] ^ 1]) {
+				flow = Math.min(flow, capacity[prevEdge[node]]);
+			}
+			
+			for(int node = sink; node != source; node = to[prevEdge[node] ^ 1]) {
+				capacity[prevEdge[node]] -= flow;
+				capacity[prevEdge[node] ^ 1] += flow;
+				totalCost += flow * cost[prevEdge[node]];
+			}
+		}
+		
+		return totalCost;
+	}
+	
+	/**
+	 * @param edge the edge index returned when adding it
+	 * @return the flow sent through the edge
+	 */
+	public int getFlow(int edge) {
+		return capacity[edge ^ 1];
+	}
+}
@@ -1,18 +1,39 @@
 import java.awt.Point;
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+import jade.core.AID;
 import jade.core.Agent;
+import jade.core.behaviours.Behaviour;
+import jade.core.behaviours.TickerBehaviour;
+import jade.core.behaviours.WakerBehaviour;
 import jade.domain.FIPANames;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
+import jade.proto.SSResponderDispatcher;
 
 public class ParkingLotAgent extends Agent {
 
 	public enum SpotType {REGULAR, LUXURY, HANDICAP};
 	
+	// Spot type bitmask with one bit per spot type ordinal
+	public static final int allSpotsMask = 0b111;
+	
 	private static final long serialVersionUID = -144714414530581727L;
 	private static final int numThreads = 50;
+	// Holds last until the car's cfp deadline plus the time its accept may take to arrive, never longer than the timeout
+	private static final long holdTimeout = 15000;
+	private static final long holdGrace = 1000;
+	private static final long arrivalOffset = 500;
+	private static final long departureTickPeriod = 100;
 	
 	// Parking lot agent random config argument indices
 	private static final int configTypeI = 0;
@@ -41,26 +62,122 @@ public class ParkingLotAgent extends Agent {
 	// Parking lot parameters
 	private Point coords;
 	private int spots;
-	private int regularSpots;
-	private int luxurySpots;
-	private int handicapSpots;
+	private SpotInventory inventory;
 	private int hourlyCost;
 	private int luxuryCostPercent;
 	
-	private ConcurrentHashMap<String, SpotType> occupiedSpots = new ConcurrentHashMap<String, SpotType>(16, 0.9f, 1);
-	private static ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(numThreads);
+	private ParkingLotSlots slots;
+	private ParkingLotCalendar calendar;
+	
+	// Slot occupied by each car agent indexed by car ID, -1 if none
+	private int[] carSlots;
+	// Vacancy last published, only written by the thread holding the publishing flag
+	private volatile int publishedSpotMask = -1;
+	private AtomicBoolean publishing = new AtomicBoolean();
+	// Encoded proposal content per offered spot types bitmask, the parking lot terms never change after setup
+	private AtomicReferenceArray<byte[]> encodedProposals = new AtomicReferenceArray<byte[]>(allSpotsMask + 1);
+	private HashMap<String, ParkingLotHold> heldSpots = new HashMap<String, ParkingLotHold>();
+	// Departures drained by the agent's own ticker, null unless departures are kept per parking lot
+	private DepartureHeap departures;
+	private static ScheduledThreadPoolExecutor executor = SimulationThreads.createScheduler(numThreads);
 	
 	public void setup() {
 
+		ProposalHandles.getInstance().addLocalAgent(getName());
+		
 		if((int) this.getArguments()[configTypeI] == randomConfig) {
 			this.initRandomArgs();
 		} else this.initFixedArgs();
+		this.initSlots();
 		this.logParkingLotAgent();
-		this.contractNetRespond();
+		this.updateSpotMask();
+		
+		if(RunAgents.getDepartureScheduler() == RunAgents.DepartureScheduler.HEAP && !SimulationClock.getInstance().isVirtual()) {
+			this.startDepartureTicker();
+		}
+		
+		if(RunAgents.getNegotiationMode() == RunAgents.NegotiationMode.BATCH) {
+			this.registerWithMatcher();
+		} else this.contractNetRespond();
+	}
+	
+	/**
+	 * Keeps departures in a heap owned by this agent and drains the due ones in a batch on every tick.
+	 * Departures are then only applied on the agent's own thread and need no executor thread.
+	 */
+	private void startDepartureTicker() {
+		
+		departures = new DepartureHeap();
+		addBehaviour(new TickerBehaviour(this, departureTickPeriod) {
+
+			private static final long serialVersionUID = -2594306425367917862L;
+
+			@Override
+			protected void onTick() {
+				releaseDueDepartures();
+			}
+		});
+	}
+	
+	/**
+	 * Vacates the spots of every car agent whose departure is due.
+	 */
+	private void releaseDueDepartures() {
+		
+		long now = SimulationClock.getInstance().now();
+		while(!departures.isEmpty() && departures.getMinTime() <= now) {
+			
+			int carId = departures.getMinCarId();
+			SpotType spot = vacateSlot(departures.getMinSlot(), carId);
+			departures.pop();
+			
+			Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.PARKING, "{} vacated {} spot in {}", RunAgents.getCarName(carId), spot, getLocalName());
+			publishVacancy(spot);
+		}
+	}
+	
+	/**
+	 * Sends the parking lot terms and free spots to the batch matcher and waits for
+	 * the spot assignments it decides.
+	 */
+	private void registerWithMatcher() {
+		
+		ACLMessage msg = new ACLMessage(ACLMessage.SUBSCRIBE);
+		msg.addReceiver(new AID(BatchMatcherAgent.matcherName, AID.ISLOCALNAME));
+		msg.setOntology(BatchMatcherAgent.matchingOntology);
+		
+		try {
+			msg.setContentObject(new ParkingLotCapacity(getLocalName(), coords, hourlyCost, luxuryCostPercent, getRegularSpots(), getLuxurySpots(), getHandicapSpots()));
+		} catch(IOException e) {
+			e.printStackTrace();
+			System.err.println("I/O Exception in parking lot agent!");
+			System.exit(1);
+		}
+		
+		addBehaviour(new ParkingLotBatchBehavior(this));
+		send(msg);
+	}
+	
+	/**
+	 * Tells the batch matcher a spot was vacated so it can be assigned again. Does nothing
+	 * if spots aren't assigned by the batch matcher.
+	 * 
+	 * @param spot the spot type vacated
+	 */
+	public void publishVacancy(SpotType spot) {
+		
+		if(RunAgents.getNegotiationMode() != RunAgents.NegotiationMode.BATCH) return;
+		
+		ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
+		msg.addReceiver(new AID(BatchMatcherAgent.matcherName, AID.ISLOCALNAME));
+		msg.setOntology(BatchMatcherAgent.matchingOntology);
+		msg.setContent(spot.name());
+		send(msg);
 	}
 	
 	/**
-	 * Initiates a ContractNetResponder to handle requests from car agents.
+	 * Initiates a ContractNetResponder to handle requests from car agents. When cars don't negotiate
+	 * one at a time each cfp gets its own responder so that several negotiations can be open at once.
 	 */
 	private void contractNetRespond() {
 		
@@ -68,7 +185,539 @@ public class ParkingLotAgent extends Agent {
 				MessageTemplate.MatchProtocol(FIPANames.InteractionProtocol.FIPA_CONTRACT_NET),
 				MessageTemplate.MatchPerformative(ACLMessage.CFP));
 
-		addBehaviour(new ParkingLotBehavior(this, template));
+		if(RunAgents.getNegotiationMode() != RunAgents.NegotiationMode.QUEUE) {
+			addBehaviour(new SSResponderDispatcher(this, template) {
+
+				private static final long serialVersionUID = 7400153318893474622L;
+
+				@Override
+				protected Behaviour createResponder(ACLMessage cfp) {
+					return new ParkingLotSessionBehavior(myAgent, cfp);
+				}
+			});
+		} else addBehaviour(new ParkingLotBehavior(this, template));
+	}
+	
+	/**
+	 * Tentatively reserves a spot for a negotiating car agent. The first desired spot type with
+	 * vacancy is held following the same priority car agents use when selecting a spot,
+	 * REGULAR -> HANDICAP -> LUXURY. Holds are only handled by the agent's own behaviours,
+	 * while the spots themselves are reserved atomically since timers restore them concurrently.
+	 * With a booking calendar the held spot is also booked, long enough to cover a hold confirmed
+	 * just before it expires.
+	 * 
+	 * @param carName the local name of the negotiating car agent
+	 * @param car the terms of the car agent, needing a spot now
+	 * @param replyBy the deadline of the car's cfp or null if none
+	 * @return the hold placed or null if no desired spot type has vacancy
+	 */
+	public ParkingLotHold placeHold(String carName, CarAgentProposal car, Date replyBy) {
+		
+		long now = SimulationClock.getInstance().now();
+		releaseExpiredHolds(now);
+		
+		long holdTime = calcHoldTime(replyBy);
+		int startHour = calcStartHour(car);
+		int endHour = calcEndHour(car, startHour) + (int) Math.ceil((double) holdTime / ParkingLotCalendar.getHourLength());
+		
+		SpotType[] priority = {SpotType.REGULAR, SpotType.HANDICAP, SpotType.LUXURY};
+		for(SpotType spot : priority) {
+			
+			boolean isDesired = false;
+			for(SpotType desired : car.getDesiredSpots()) {
+				if(desired == spot) isDesired = true;
+			}
+			
+			if(!isDesired || !book(spot, startHour, endHour)) continue;
+			
+			if(takeSpot(spot)) {
+				ParkingLotHold hold = new ParkingLotHold(spot, now + holdTime, startHour, endHour);
+				heldSpots.put(carName, hold);
+				return hold;
+			}
+			
+			cancelBooking(spot, startHour, endHour);
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * A car only accepts once its cfp deadline passed or it closed the negotiation early, so a hold
+	 * is kept no longer than the deadline plus the time the accept may take to arrive. Holds are
+	 * released as soon as the car rejects, keeping them short bounds how long spots that end up
+	 * rejected stay out of vacancy while many cars negotiate at once.
+	 * 
+	 * @param replyBy the deadline of the car's cfp or null if none
+	 * @return the time in milliseconds to hold a spot for
+	 */
+	private long calcHoldTime(Date replyBy) {
+		
+		if(replyBy == null) return holdTimeout;
+		return Math.max(Math.min(replyBy.getTime() - System.currentTimeMillis() + holdGrace, holdTimeout), holdGrace);
+	}
+	
+	/**
+	 * Turns the hold of a car agent into an occupied spot. The hold's booking covered a confirmation
+	 * as late as the hold expiry, the hours past the car agent's stay from now are released.
+	 * 
+	 * @param carName the local name of the car agent that accepted the proposal
+	 * @param car the terms of the car agent
+	 * @return the spot type occupied or null if the hold had already expired
+	 */
+	public SpotType confirmHold(String carName, CarAgentProposal car) {
+		
+		releaseExpiredHolds(SimulationClock.getInstance().now());
+		
+		ParkingLotHold hold = heldSpots.remove(carName);
+		if(hold == null) return null;
+		
+		int endHour = calcEndHour(car, calcStartHour(car));
+		if(endHour < hold.getEndHour()) cancelBooking(hold.getSpotType(), endHour, hold.getEndHour());
+		
+		occupySlot(carName, hold.getSpotType());
+		return hold.getSpotType();
+	}
+	
+	/**
+	 * Books and occupies a spot for a car agent that accepted a proposal without holding a spot. Cars
+	 * needing the spot now occupy it straight away, cars booking ahead occupy it once their booking starts.
+	 * Fails if the spot type was booked or taken since the proposal was sent.
+	 * 
+	 * @param carName the local name of the car agent
+	 * @param car the terms of the car agent
+	 * @param spot the spot type accepted
+	 * @return whether the spot was booked
+	 */
+	public boolean acceptSpot(String carName, CarAgentProposal car, SpotType spot) {
+		
+		int startHour = calcStartHour(car);
+		int endHour = calcEndHour(car, startHour);
+		if(!book(spot, startHour, endHour)) return false;
+		
+		if(car.isAdvanceBooking()) {
+			scheduleArrival(carName, spot, startHour, endHour);
+			return true;
+		}
+		
+		if(!occupySpot(carName, spot)) {
+			cancelBooking(spot, startHour, endHour);
+			return false;
+		}
+		
+		scheduleDeparture(carName, car.getHoursNeeded());
+		return true;
+	}
+	
+	/**
+	 * Schedules the timer vacating the spot of a car agent once its hours needed have elapsed.
+	 * 
+	 * @param carName the local name of the car agent
+	 * @param hoursNeeded the simulated hours the car agent stays
+	 */
+	public void scheduleDeparture(String carName, int hoursNeeded) {
+		scheduleDepartureIn(carName, hoursNeeded * ParkingLotCalendar.getHourLength());
+	}
+	
+	/**
+	 * Schedules the departure of a car agent on the departure scheduler in use, either one timer per
+	 * departure on the shared executor, batched per tick on the timing wheel or kept in this agent's own
+	 * departure heap. In virtual time every departure is an event of the simulation clock instead.
+	 * 
+	 * @param carName the local name of the car agent
+	 * @param delay the delay in milliseconds
+	 */
+	private void scheduleDepartureIn(String carName, long delay) {
+		
+		if(SimulationClock.getInstance().isVirtual()) {
+			SimulationClock.getInstance().schedule(new ParkingLotTimer(this, carName), delay);
+		} else if(departures != null) {
+			int carId = RunAgents.getCarId(carName);
+			departures.push(SimulationClock.getInstance().now() + delay, carSlots[carId], carId);
+		} else if(RunAgents.getDepartureScheduler() == RunAgents.DepartureScheduler.WHEEL) {
+			DepartureWheel.getInstance().schedule(new ParkingLotTimer(this, carName), delay);
+		} else executor.schedule(SimulationThreads.dispatch(new ParkingLotTimer(this, carName)), delay, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Schedules a car agent that booked ahead to occupy its spot just after its booking starts, once the
+	 * previous booking's car vacated it, and to vacate it when its booking ends.
+	 * 
+	 * @param carName the local name of the car agent
+	 * @param spot the spot type booked
+	 * @param startHour the simulated hour the booking starts at
+	 * @param endHour the simulated hour the booking ends at
+	 */
+	private void scheduleArrival(String carName, SpotType spot, int startHour, int endHour) {
+		
+		long now = SimulationClock.getInstance().now();
+		long arrivalDelay = ParkingLotCalendar.getHourStart(startHour) + arrivalOffset - now;
+		long departureDelay = ParkingLotCalendar.getHourStart(endHour) - now;
+		
+		Runnable arrival = () -> {
+			if(occupySpot(carName, spot)) {
+				Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.PARKING, "{} arrived at booked {} spot in {}", carName, spot, getLocalName());
+				scheduleDepartureIn(carName, departureDelay - arrivalDelay);
+			} else Logger.getInstance().log(Logger.LogLevel.WARN, Logger.LogCategory.PARKING, "{} found its booked {} spot in {} taken", carName, spot, getLocalName());
+		};
+		
+		if(SimulationClock.getInstance().isVirtual()) {
+			SimulationClock.getInstance().schedule(arrival, arrivalDelay);
+		} else if(departures != null) {
+			addBehaviour(new WakerBehaviour(this, Math.max(arrivalDelay, 0)) {
+
+				private static final long serialVersionUID = 3382745028614096520L;
+
+				@Override
+				protected void onWake() {
+					arrival.run();
+				}
+			});
+		} else executor.schedule(SimulationThreads.dispatch(arrival), arrivalDelay, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Occupies a spot of the given type for a car agent if there is vacancy.
+	 * 
+	 * @param carName the local name of the car agent
+	 * @param spot the spot type to occupy
+	 * @return whether the spot was occupied
+	 */
+	public boolean occupySpot(String carName, SpotType spot) {
+		
+		if(!takeSpot(spot)) return false;
+		
+		occupySlot(carName, spot);
+		return true;
+	}
+	
+	/**
+	 * Vacates the slot occupied by a car agent, freeing the slot before restoring the spot's vacancy
+	 * so that any car reserving the spot afterwards finds a free slot.
+	 * 
+	 * @param carName the local name of the car agent leaving
+	 * @return the spot type vacated
+	 */
+	public SpotType vacateSpot(String carName) {
+		
+		int carId = RunAgents.getCarId(carName);
+		return vacateSlot(carSlots[carId], carId);
+	}
+	
+	/**
+	 * Vacates a slot occupied by a car agent.
+	 * 
+	 * @param slot the slot occupied
+	 * @param carId the ID of the car agent leaving
+	 * @return the spot type vacated
+	 */
+	private SpotType vacateSlot(int slot, int carId) {
+		
+		carSlots[carId] = -1;
+		
+		SpotType spot = slots.getSpotType(slot);
+		slots.free(slot);
+		releaseSpot(spot);
+		
+		return spot;
+	}
+	
+	/**
+	 * Assigns a free slot of a spot type already reserved in the inventory to a car agent. The
+	 * reservation guarantees a free slot, since the inventory never counts more spots than free slots.
+	 * 
+	 * @param carName the local name of the car agent
+	 * @param spot the spot type reserved
+	 */
+	private void occupySlot(String carName, SpotType spot) {
+		carSlots[RunAgents.getCarId(carName)] = slots.claim(spot);
+	}
+	
+	/**
+	 * Releases the hold of a car agent, restoring the held spot's vacancy.
+	 * 
+	 * @param carName the local name of the car agent that rejected the proposal
+	 */
+	public void releaseHold(String carName) {
+		
+		ParkingLotHold hold = heldSpots.remove(carName);
+		if(hold != null) releaseHeldSpot(hold);
+	}
+	
+	/**
+	 * Restores the vacancy of a held spot and cancels its booking.
+	 * 
+	 * @param hold the hold released
+	 */
+	private void releaseHeldSpot(ParkingLotHold hold) {
+		
+		cancelBooking(hold.getSpotType(), hold.getStartHour(), hold.getEndHour());
+		releaseSpot(hold.getSpotType());
+	}
+	
+	/**
+	 * Releases all holds whose car agents did not answer before the hold timeout.
+	 * 
+	 * @param now the current time in milliseconds
+	 */
+	private void releaseExpiredHolds(long now) {
+		
+		Iterator<Map.Entry<String, ParkingLotHold>> it = heldSpots.entrySet().iterator();
+		while(it.hasNext()) {
+			
+			Map.Entry<String, ParkingLotHold> entry = it.next();
+			if(entry.getValue().isExpired(now)) {
+				Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.PARKING, "Hold of {} expired", entry.getKey());
+				releaseHeldSpot(entry.getValue());
+				it.remove();
+			}
+		}
+	}
+	
+	/**
+	 * Checks whether the car agent's own limits already rule this parking lot out, so that the parking
+	 * lot can refuse instead of sending a proposal the car agent would reject. The distance and the hourly
+	 * cost of the spot the car agent would pick are checked against its evaluator's reach and cost limit,
+	 * which include the evaluator's tolerance.
+	 * 
+	 * @param car the terms of the car agent
+	 * @return whether the car agent may accept a proposal of this parking lot
+	 */
+	public boolean isWithinCarLimits(CarAgentProposal car) {
+		
+		int distance = (int) car.getCoords().distance(coords);
+		if(distance > CarEvaluator.calcReach(car.getEvaluatorType(), car.getMaxDistance())) return false;
+		
+		SpotType spot = findOfferedSpot(getOfferedMask(car) & toSpotMask(car.getDesiredSpots()));
+		if(spot == null) return true;
+		
+		return calcSpotCost(spot) <= CarEvaluator.calcCostLimit(car.getEvaluatorType(), car.getMaxHourlyCost());
+	}
+	
+	/**
+	 * Finds the spot type a car agent would end up with, the first desired spot type with vacancy following
+	 * the priority car agents use when selecting a spot, REGULAR -> HANDICAP -> LUXURY.
+	 * 
+	 * @param vacantMask the bitmask of the desired spot types with vacancy
+	 * @return the spot type or null if no desired spot type has vacancy
+	 */
+	private SpotType findOfferedSpot(int vacantMask) {
+		
+		SpotType[] priority = {SpotType.REGULAR, SpotType.HANDICAP, SpotType.LUXURY};
+		for(SpotType spot : priority) {
+			if((vacantMask & (1 << spot.ordinal())) != 0) return spot;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * @param spot the spot type
+	 * @return the hourly cost of the spot type, luxury spots having the luxury cost modifier applied
+	 */
+	private int calcSpotCost(SpotType spot) {
+		
+		if(spot == SpotType.LUXURY) {
+			return (int) Math.round(hourlyCost * luxuryCostPercent / 100.0f);
+		}
+		
+		return hourlyCost;
+	}
+	
+	/**
+	 * Returns the encoded content of a proposal offering the given spot types. Since the parking lot
+	 * terms are fixed, a proposal only depends on the spot types offered and is encoded once per bitmask.
+	 * 
+	 * @param offeredMask the bitmask of the spot types offered
+	 * @return the encoded proposal content
+	 */
+	public byte[] getEncodedProposal(int offeredMask) {
+		
+		byte[] encoded = encodedProposals.get(offeredMask);
+		if(encoded == null) {
+			ParkingLotProposal proposal = new ParkingLotProposal(coords, hourlyCost, luxuryCostPercent,
+					(offeredMask & (1 << SpotType.REGULAR.ordinal())) != 0,
+					(offeredMask & (1 << SpotType.LUXURY.ordinal())) != 0,
+					(offeredMask & (1 << SpotType.HANDICAP.ordinal())) != 0);
+			
+			// Keep whichever encoding was stored first if another thread raced this one
+			encodedProposals.compareAndSet(offeredMask, null, ProposalCodec.toBytes(proposal));
+			encoded = encodedProposals.get(offeredMask);
+		}
+		
+		return encoded;
+	}
+	
+	/**
+	 * @param spots the spot types
+	 * @return the bitmask of the spot types
+	 */
+	public static int toSpotMask(SpotType[] spots) {
+		
+		int mask = 0;
+		for(SpotType spot : spots) {
+			mask |= 1 << spot.ordinal();
+		}
+		
+		return mask;
+	}
+	
+	/**
+	 * @return the bitmask of spot types with vacancy, read from a single inventory snapshot
+	 */
+	public int getSpotMask() {
+		return SpotInventory.getSpotMask(inventory.snapshot());
+	}
+	
+	/**
+	 * Returns the spot types that can be offered to a car agent. Cars needing a spot now are offered the
+	 * spot types with vacancy, and with a booking calendar also free for their whole stay, while cars
+	 * booking ahead are offered the spot types free during their booking whatever the vacancy now.
+	 * 
+	 * @param car the terms of the car agent
+	 * @return the bitmask of the spot types that can be offered
+	 */
+	public int getOfferedMask(CarAgentProposal car) {
+		
+		int spotMask = car.isAdvanceBooking() ? allSpotsMask : getSpotMask();
+		if(calendar == null) return spotMask;
+		
+		int startHour = calcStartHour(car);
+		return spotMask & calendar.getFreeMask(startHour, calcEndHour(car, startHour));
+	}
+	
+	/**
+	 * @param car the terms of the car agent
+	 * @return the simulated hour the car agent's booking starts at
+	 */
+	private int calcStartHour(CarAgentProposal car) {
+		return ParkingLotCalendar.getCurrentHour() + car.getStartDelay();
+	}
+	
+	/**
+	 * Cars needing a spot now arrive partway through the current hour, so their booking covers one more hour.
+	 * 
+	 * @param car the terms of the car agent
+	 * @param startHour the simulated hour the car agent's booking starts at
+	 * @return the simulated hour the car agent's booking ends at
+	 */
+	private int calcEndHour(CarAgentProposal car, int startHour) {
+		return startHour + car.getHoursNeeded() + (car.isAdvanceBooking() ? 0 : 1);
+	}
+	
+	/**
+	 * Books a spot type in the booking calendar, always succeeding without one.
+	 * 
+	 * @param spot the spot type to book
+	 * @param startHour the simulated hour the booking starts at
+	 * @param endHour the simulated hour the booking ends at
+	 * @return whether the spot type was booked
+	 */
+	private boolean book(SpotType spot, int startHour, int endHour) {
+		return calendar == null || calendar.tryBook(spot, startHour, endHour);
+	}
+	
+	/**
+	 * Cancels a booking made with book.
+	 * 
+	 * @param spot the spot type booked
+	 * @param startHour the simulated hour the booking starts at
+	 * @param endHour the simulated hour the booking ends at
+	 */
+	private void cancelBooking(SpotType spot, int startHour, int endHour) {
+		if(calendar != null) calendar.cancel(spot, startHour, endHour);
+	}
+	
+	/**
+	 * Publishes the spot types with vacancy to the nearest parking lot index used by car agents,
+	 * the district agent of the parking lot and the vacancy board when they changed.
+	 * Every spot taken or vacated goes through here, from accepted proposals to parking lot timers.
+	 * Nothing is done unless a spot type ran out or regained vacancy. One thread at a time publishes,
+	 * claiming a flag instead of a lock, while the others return at once. The publisher checks the
+	 * inventory again after releasing the flag, so that vacancy changed while it was publishing is
+	 * published too and the last publish always carries the latest vacancy.
+	 */
+	private void updateSpotMask() {
+		
+		while(getSpotMask() != publishedSpotMask && publishing.compareAndSet(false, true)) {
+			
+			int spotMask = getSpotMask();
+			if(spotMask != publishedSpotMask) {
+				publishedSpotMask = spotMask;
+				publishSpotMask(spotMask);
+			}
+			
+			publishing.set(false);
+		}
+	}
+	
+	/**
+	 * Publishes the spot types with vacancy to the nearest parking lot index, the district agent
+	 * of the parking lot and the vacancy board.
+	 * 
+	 * @param spotMask the bitmask of spot types with vacancy
+	 */
+	private void publishSpotMask(int spotMask) {
+		
+		RunAgents.getParkingLotKdTree().setSpotMask(RunAgents.getParkingLotIndex(getLocalName()), spotMask);
+		
+		ParkingLotStatus status = new ParkingLotStatus(coords, hourlyCost, luxuryCostPercent, spotMask);
+		if(RunAgents.isDistricted()) {
+			sendStatus(RunAgents.getDistrictName(coords), DistrictAgent.districtOntology, status);
+		}
+		
+		if(RunAgents.isVacancyBoard()) {
+			sendStatus(VacancyBoardAgent.boardName, VacancyBoardAgent.boardOntology, status);
+		}
+	}
+	
+	/**
+	 * Sends the parking lot status to an agent tracking parking lot vacancy.
+	 * 
+	 * @param receiverName the local name of the receiving agent
+	 * @param ontology the ontology of the receiving agent's messages
+	 * @param status the parking lot status
+	 */
+	private void sendStatus(String receiverName, String ontology, ParkingLotStatus status) {
+		
+		ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
+		msg.addReceiver(new AID(receiverName, AID.ISLOCALNAME));
+		msg.setOntology(ontology);
+		
+		try {
+			msg.setContentObject(status);
+		} catch(IOException e) {
+			e.printStackTrace();
+			System.err.println("I/O Exception in parking lot agent!");
+			System.exit(1);
+		}
+		
+		send(msg);
+	}
+	
+	/**
+	 * Takes one spot of the given type if there is vacancy.
+	 * 
+	 * @param spot the spot type to take
+	 * @return whether a spot was taken
+	 */
+	private boolean takeSpot(SpotType spot) {
+		
+		if(!inventory.tryReserve(spot)) return false;
+		
+		updateSpotMask();
+		return true;
+	}
+	
+	/**
+	 * Restores one spot of the given type, safe to call from parking lot timers.
+	 * 
+	 * @param spot the spot type to restore
+	 */
+	public void releaseSpot(SpotType spot) {
+		
+		inventory.release(spot);
+		updateSpotMask();
 	}
 	
 	/**
@@ -92,6 +741,9 @@ public class ParkingLotAgent extends Agent {
 		
 		float leftOverPercent = 0;
 		int spotTypes = 0;
+		int regularSpots = 0;
+		int luxurySpots = 0;
+		int handicapSpots = 0;
 		
 		if(regularSpot) {
 			spotTypes++;
@@ -128,6 +780,8 @@ public class ParkingLotAgent extends Agent {
 			else if(luxurySpot) luxurySpots -= roundError;
 			else if(handicapSpot) handicapSpots -= roundError;
 		}
+		
+		inventory = new SpotInventory(regularSpots, luxurySpots, handicapSpots);
 	}
 	
 	/**
@@ -141,13 +795,25 @@ public class ParkingLotAgent extends Agent {
 		// Assign values
 		coords = new Point((int) args[coordsXI], (int) args[coordsYI]);
 		spots = (int) args[regularSpotsI] + (int) args[luxurySpotsI] + (int) args[handicapSpotsI];
-		regularSpots = (int) args[regularSpotsI];
-		luxurySpots = (int) args[luxurySpotsI];
-		handicapSpots = (int) args[handicapSpotsI];
+		inventory = new SpotInventory((int) args[regularSpotsI], (int) args[luxurySpotsI], (int) args[handicapSpotsI]);
 		hourlyCost = (int) args[fixedHourlyCostI];
 		luxuryCostPercent = (int) args[fixedLuxuryCostPercentI];
 	}
 	
+	/**
+	 * Initialises the slot level occupancy from the initial vacancy, with room for every car agent.
+	 */
+	private void initSlots() {
+		
+		slots = new ParkingLotSlots(getRegularSpots(), getLuxurySpots(), getHandicapSpots());
+		carSlots = new int[RunAgents.getCarAgents().size()];
+		Arrays.fill(carSlots, -1);
+		
+		if(RunAgents.isAdvanceBooking()) {
+			calendar = new ParkingLotCalendar(getRegularSpots(), getLuxurySpots(), getHandicapSpots());
+		}
+	}
+	
 	/**
 	 * Logs parking lot agent parameters.
 	 */
@@ -158,7 +824,7 @@ public class ParkingLotAgent extends Agent {
 		logger.logPrint("PARKING LOT ARGS START");
 		logger.logPrint("Coords: (" + coords.x + ", " + coords.y + ")");
 		logger.logPrint("Available spots: " + spots);
-		logger.logPrint("Regular: " + regularSpots + " Luxury: " + luxurySpots + " Handicap: " + handicapSpots);
+		logger.logPrint("Regular: " + getRegularSpots() + " Luxury: " + getLuxurySpots() + " Handicap: " + getHandicapSpots());
 		logger.logPrint("Hourly cost: " + hourlyCost);
 		logger.logPrint("Luxury cost modifier: " + luxuryCostPercent);
 		logger.logPrint("PARKING LOT ARGS END" + System.lineSeparator());
@@ -168,21 +834,21 @@ public class ParkingLotAgent extends Agent {
 	 * @return the regular spot number
 	 */
 	public int getRegularSpots() {
-		return regularSpots;
+		return SpotInventory.getSpots(inventory.snapshot(), SpotType.REGULAR);
 	}
 
 	/**
 	 * @return the luxury spot number
 	 */
 	public int getLuxurySpots() {
-		return luxurySpots;
+		return SpotInventory.getSpots(inventory.snapshot(), SpotType.LUXURY);
 	}
 
 	/**
 	 * @return the handicap spot number
 	 */
 	public int getHandicapSpots() {
-		return handicapSpots;
+		return SpotInventory.getSpots(inventory.snapshot(), SpotType.HANDICAP);
 	}
 	
 	/**
@@ -205,39 +871,4 @@ public class ParkingLotAgent extends Agent {
 	public int getLuxuryCostPercent() {
 		return luxuryCostPercent;
 	}
-
-	/**
-	 * @return the occupied spots map
-	 */
-	public ConcurrentHashMap<String, SpotType> getOccupiedSpots() {
-		return occupiedSpots;
-	}
-
-	/**
-	 * @return the executor service
-	 */
-	public static ScheduledThreadPoolExecutor getExecutor() {
-		return executor;
-	}
-
-	/**
-	 * @param regularSpots the regular spot number to set
-	 */
-	public void setRegularSpots(int regularSpots) {
-		this.regularSpots = regularSpots;
-	}
-
-	/**
-	 * @param luxurySpots the luxury spot number to set
-	 */
-	public void setLuxurySpots(int luxurySpots) {
-		this.luxurySpots = luxurySpots;
-	}
-
-	/**
-	 * @param handicapSpots the handicap spot number to set
-	 */
-	public void setHandicapSpots(int handicapSpots) {
-		this.handicapSpots = handicapSpots;
-	}
 }
@@ -0,0 +1,65 @@
+import java.util.ArrayList;
+
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.lang.acl.UnreadableException;
+
+public class ParkingLotBatchBehavior extends CyclicBehaviour {
+
+	private static final long serialVersionUID = -1562236580961418803L;
+
+	ParkingLotAgent agent;
+	
+	private MessageTemplate template = MessageTemplate.and(
+			MessageTemplate.MatchOntology(BatchMatcherAgent.matchingOntology),
+			MessageTemplate.MatchPerformative(ACLMessage.ACCEPT_PROPOSAL));
+	
+	/**
+	 * Constructs a parking lot behaviour responsible for occupying the spots the batch matcher
+	 * assigned to car agents. All the assignments of a matching window arrive in a single message.
+	 * 
+	 * @param a the parking lot agent
+	 */
+	public ParkingLotBatchBehavior(Agent a) {
+		super(a);
+		this.agent = (ParkingLotAgent) a;
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public void action() {
+		
+		ACLMessage msg = myAgent.receive(template);
+		if(msg == null) {
+			block();
+			return;
+		}
+		
+		ArrayList<BatchAssignment> assignments = null;
+		try {
+			assignments = (ArrayList<BatchAssignment>) msg.getContentObject();
+		} catch(UnreadableException e) {
+			e.printStackTrace();
+			System.err.println("Error occured during the decoding of the content of the ACLMessage!");
+			System.exit(1);
+		}
+		
+		for(BatchAssignment assignment : assignments) {
+			
+			String carName = assignment.getCarName();
+			
+			// The matcher never assigns more spots than it was told are free
+			if(!agent.occupySpot(carName, assignment.getSpotType())) {
+				Logger.getInstance().log(Logger.LogLevel.ERROR, Logger.LogCategory.PARKING, "No {} spot left for {}, batch matcher is out of sync!", assignment.getSpotType(), carName);
+				continue;
+			}
+			
+			Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.PARKING, "{} was assigned spot type: {}", carName, assignment.getSpotType());
+			
+			// Schedule a timer to restore the occupied spot
+			agent.scheduleDeparture(carName, assignment.getHoursNeeded());
+		}
+	}
+}
@@ -1,20 +1,16 @@
-import java.io.IOException;
-import java.util.concurrent.TimeUnit;
-
 import jade.core.Agent;
 import jade.domain.FIPAAgentManagement.FailureException;
 import jade.domain.FIPAAgentManagement.NotUnderstoodException;
 import jade.domain.FIPAAgentManagement.RefuseException;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
-import jade.lang.acl.UnreadableException;
 import jade.proto.ContractNetResponder;
 
 public class ParkingLotBehavior extends ContractNetResponder {
 
 	private static final long serialVersionUID = -3463116286662565961L;
 	
-	private static final int simulatedHours = 5;
+	static final int simulatedHours = 5;
 	
 	ParkingLotAgent agent;
 
@@ -36,104 +32,63 @@ public class ParkingLotBehavior extends ContractNetResponder {
 	 * Checks if at least one of the desired spot types has vacancy in the parking lot.
 	 * 
 	 * @param proposal the car agent proposal object
+	 * @param spotMask the bitmask of spot types with vacancy
 	 * @return whether the parking lot as vacancy for the desired spot type
 	 */
-	private boolean checkVacancy(CarAgentProposal proposal) {
-		
-		boolean isVacant = false;
-		
-		for(ParkingLotAgent.SpotType spot : proposal.getDesiredSpots()) {
-			
-			switch(spot) {
-			case REGULAR:
-				if(agent.getRegularSpots() > 0) {
-					isVacant = true;
-				}
-				break;
-			case LUXURY:
-				if(agent.getLuxurySpots() > 0) {
-					isVacant = true;
-				}
-				break;
-			case HANDICAP:
-				if(agent.getHandicapSpots() > 0) {
-					isVacant = true;
-				}
-				break;
-			}
-		}
-		
-		return isVacant;
+	private boolean checkVacancy(CarAgentProposal proposal, int spotMask) {
+		return (spotMask & ParkingLotAgent.toSpotMask(proposal.getDesiredSpots())) != 0;
 	}
 
 	/**
 	 * Builds a reply to a cfp message by sending a content object with all the info needed for negotiation.
 	 * 
 	 * @param cfp the call for proposals received by this agent
+	 * @param spotMask the bitmask of spot types with vacancy
 	 * @return the ACLMessage to reply with
 	 */
-	private ACLMessage buildProposal(ACLMessage cfp) {
+	private ACLMessage buildProposal(ACLMessage cfp, int spotMask) {
 		
 		ACLMessage propose = cfp.createReply();
 		propose.setPerformative(ACLMessage.PROPOSE);
 		
-		// Build proposal object
-		boolean hasRegular = agent.getRegularSpots() > 0 ? true : false;
-		boolean hasLuxury = agent.getLuxurySpots() > 0 ? true : false;
-		boolean hasHandicap = agent.getHandicapSpots() > 0 ? true : false;
-		ParkingLotProposal proposalTerms = new ParkingLotProposal(agent.getCoords(), agent.getHourlyCost(), agent.getLuxuryCostPercent(), hasRegular, hasLuxury, hasHandicap);
-		
-		try {
-			propose.setContentObject(proposalTerms);
-		} catch(IOException e) {
-			e.printStackTrace();
-			System.err.println("I/O Exception in parking lot agent!");
-			System.exit(1);
-		}
+		// Reuse the proposal encoded for the spot types with vacancy
+		ProposalCodec.setEncodedContent(propose, agent.getEncodedProposal(spotMask));
 
 		return propose;
 	}
 	
-	/**
-	 * Extracts a car agent proposal object from an ACLMessage sent as cfp.
-	 * 
-	 * @param msg the ACLMessage to get the object from
-	 * @return the car agent proposal
-	 */
-	private CarAgentProposal getCarAgentProposal(ACLMessage msg) {
-		
-		CarAgentProposal carAgentProposal = null;
-		try {
-			carAgentProposal = (CarAgentProposal) msg.getContentObject();
-		} catch(UnreadableException e) {
-			e.printStackTrace();
-			System.err.println("Error occured during the decoding of the content of the ACLMessage!");
-			System.exit(1);
-		}
-		
-		return carAgentProposal;
-	}
-	
 	@Override
 	protected ACLMessage handleCfp(ACLMessage cfp) throws NotUnderstoodException, RefuseException {
 
 		// Get the car agent proposal sent with the cfp
-		CarAgentProposal carProposal = getCarAgentProposal(cfp);
-
-		// Log the requested spot types
-		String spotTypes = "";
-		for(ParkingLotAgent.SpotType spot : carProposal.getDesiredSpots()) {
-			spotTypes += spot + " ";
+		CarAgentProposal carProposal = ProposalCodec.getCarAgentProposal(cfp);
+		
+		String proposer = cfp.getSender().getLocalName();
+		
+		// Log the requested spot types, only built when debug parking logging is enabled
+		if(Logger.getInstance().isEnabled(Logger.LogLevel.DEBUG, Logger.LogCategory.PARKING)) {
+			String spotTypes = "";
+			for(ParkingLotAgent.SpotType spot : carProposal.getDesiredSpots()) {
+				spotTypes += spot + " ";
+			}
+			
+			Logger.getInstance().logPrint("Agent " + proposer + " requests spot types: " + spotTypes);
 		}
 		
-		Logger.getInstance().logPrint("Agent " + cfp.getSender().getLocalName() + " requests spot types: " + spotTypes);
+		// Refuse early when the car agent would reject the proposal anyway
+		if(RunAgents.isPrefiltering() && !agent.isWithinCarLimits(carProposal)) {
+			Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.PARKING, "Refusing to propose to {} because the parking lot is outside its limits", proposer);
+			throw new RefuseException("Outside car limits");
+		}
 		
-		// Check whether the parking lot has a spot of one of the types requested
-		if(checkVacancy(carProposal)) {
-			Logger.getInstance().logPrint("Proposing to " + cfp.getSender().getLocalName());
-			return buildProposal(cfp);
+		// Check whether the parking lot has a spot of one of the types requested, vacancy is read once
+		// so that the proposal offers the same spot types that were checked
+		int spotMask = agent.getOfferedMask(carProposal);
+		if(checkVacancy(carProposal, spotMask)) {
+			Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.PARKING, "Proposing to {}", proposer);
+			return buildProposal(cfp, spotMask);
 		} else {
-			Logger.getInstance().logPrint("Refusing to propose to " + cfp.getSender().getLocalName() + " because no parking spots of the requested type are left");
+			Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.PARKING, "Refusing to propose to {} because no parking spots of the requested type are left", proposer);
 			throw new RefuseException("No empty spots left");
 		}
 	}
@@ -144,30 +99,15 @@ public class ParkingLotBehavior extends ContractNetResponder {
 		String proposer = accept.getSender().getLocalName();
 		ParkingLotAgent.SpotType desiredSpot = ParkingLotAgent.SpotType.valueOf(accept.getContent());
 		
-		Logger.getInstance().logPrint(accept.getSender().getLocalName() + " accepted proposal and selected spot type: " + desiredSpot);
+		Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.PARKING, "{} accepted proposal and selected spot type: {}", proposer, desiredSpot);
 		
-		// Update the occupied spots of the parking lot
-		switch(desiredSpot) {
-		case REGULAR:
-			agent.getOccupiedSpots().put(proposer, ParkingLotAgent.SpotType.REGULAR);
-			agent.setRegularSpots(agent.getRegularSpots() - 1);
-			break;
-		case LUXURY:
-			agent.getOccupiedSpots().put(proposer, ParkingLotAgent.SpotType.LUXURY);
-			agent.setLuxurySpots(agent.getLuxurySpots() - 1);
-			break;
-		case HANDICAP:
-			agent.getOccupiedSpots().put(proposer, ParkingLotAgent.SpotType.HANDICAP);
-			agent.setHandicapSpots(agent.getHandicapSpots() - 1);
-			break;
+		// Book and occupy the spot, scheduling a timer to restore it, the spot may have been taken since proposing
+		CarAgentProposal carProposal = ProposalCodec.getCarAgentProposal(cfp);
+		if(!agent.acceptSpot(proposer, carProposal, desiredSpot)) {
+			Logger.getInstance().log(Logger.LogLevel.WARN, Logger.LogCategory.PARKING, "No {} spot left for {}", desiredSpot, proposer);
+			throw new FailureException("No empty spots left");
 		}
 		
-		// Get the hours needed by the car agent
-		CarAgentProposal carProposal = getCarAgentProposal(cfp);
-		
-		// Schedule a timer to restore the occupied spot
-		ParkingLotAgent.getExecutor().schedule(new ParkingLotTimer((ParkingLotAgent) this.getAgent(), agent.getOccupiedSpots(), proposer), carProposal.getHoursNeeded() * simulatedHours, TimeUnit.SECONDS);
-		
 		ACLMessage inform = accept.createReply();
 		inform.setPerformative(ACLMessage.INFORM);
 		return inform;
@@ -175,6 +115,6 @@ public class ParkingLotBehavior extends ContractNetResponder {
 
 	@Override
 	protected void handleRejectProposal(ACLMessage cfp, ACLMessage propose, ACLMessage reject) {
-		Logger.getInstance().logPrint(reject.getSender().getLocalName() + " rejected proposal");
+		Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.PARKING, "{} rejected proposal", reject.getSender().getLocalName());
 	}
 }
@@ -0,0 +1,253 @@
+import java.util.Arrays;
+
+public class ParkingLotCalendar {
+
+	// Bookable simulated hours from the current hour on, a power of 2, hour h is kept at index h modulo the horizon
+	private static final int horizon = 4096;
+	private static final ParkingLotAgent.SpotType[] spotTypes = ParkingLotAgent.SpotType.values();
+	private static boolean warned = false;
+	
+	private int[] capacity = new int[spotTypes.length];
+	
+	// Per spot type segment tree over the hours holding the max bookings of each range, with pending range additions
+	private int[][] maxBooked = new int[spotTypes.length][2 * horizon];
+	private int[][] pendingAdd = new int[spotTypes.length][2 * horizon];
+	// Hours before this one have passed and were cleared so that their indices can be reused
+	private int clearedHour = 0;
+	
+	/**
+	 * Constructs the booking calendar of a parking lot. Every car agent parking in the parking lot books
+	 * its spot type for a window of simulated hours, either starting now or in advance. Checking whether
+	 * a spot type is free for a window and booking it are logarithmic in the horizon regardless of the
+	 * number of bookings. The calendar slides along with the simulation, hours are cleared as they pass
+	 * so that a window may end up to the horizon past the current hour at any time.
+	 * 
+	 * @param regularSpots the regular spots of the parking lot
+	 * @param luxurySpots the luxury spots of the parking lot
+	 * @param handicapSpots the handicap spots of the parking lot
+	 */
+	public ParkingLotCalendar(int regularSpots, int luxurySpots, int handicapSpots) {
+		capacity[ParkingLotAgent.SpotType.REGULAR.ordinal()] = regularSpots;
+		capacity[ParkingLotAgent.SpotType.LUXURY.ordinal()] = luxurySpots;
+		capacity[ParkingLotAgent.SpotType.HANDICAP.ordinal()] = handicapSpots;
+	}
+	
+	/**
+	 * @param spot the spot type
+	 * @param start the first simulated hour of the window
+	 * @param end the simulated hour the window ends at, exclusive
+	 * @return whether a spot of the given type is free during the whole window
+	 */
+	public synchronized boolean isFree(ParkingLotAgent.SpotType spot, int start, int end) {
+		
+		clearPassedHours();
+		
+		// Hours already passed need no spot, windows reaching beyond the horizon can never be booked
+		start = Math.max(start, clearedHour);
+		if(end > clearedHour + horizon) {
+			warnBeyondHorizon(end);
+			return false;
+		}
+		
+		if(start >= end) return false;
+		return queryWindow(spot.ordinal(), start, end) < capacity[spot.ordinal()];
+	}
+	
+	/**
+	 * @param start the first simulated hour of the window
+	 * @param end the simulated hour the window ends at, exclusive
+	 * @return the bitmask of spot types free during the whole window
+	 */
+	public synchronized int getFreeMask(int start, int end) {
+		
+		int mask = 0;
+		for(ParkingLotAgent.SpotType spot : spotTypes) {
+			if(isFree(spot, start, end)) mask |= 1 << spot.ordinal();
+		}
+		
+		return mask;
+	}
+	
+	/**
+	 * Books a spot of the given type for a window if one is free during the whole window.
+	 * 
+	 * @param spot the spot type
+	 * @param start the first simulated hour of the window
+	 * @param end the simulated hour the window ends at, exclusive
+	 * @return whether the spot was booked
+	 */
+	public synchronized boolean tryBook(ParkingLotAgent.SpotType spot, int start, int end) {
+		
+		if(!isFree(spot, start, end)) return false;
+		
+		addWindow(spot.ordinal(), Math.max(start, clearedHour), end, 1);
+		return true;
+	}
+	
+	/**
+	 * Cancels a booking previously made with tryBook.
+	 * 
+	 * @param spot the spot type
+	 * @param start the first simulated hour of the window
+	 * @param end the simulated hour the window ends at, exclusive
+	 */
+	public synchronized void cancel(ParkingLotAgent.SpotType spot, int start, int end) {
+		
+		// Passed hours of the booking were already cleared
+		clearPassedHours();
+		start = Math.max(start, clearedHour);
+		if(start < end) addWindow(spot.ordinal(), start, end, -1);
+	}
+	
+	/**
+	 * Clears the bookings of the hours passed since the last call, resetting the whole calendar once
+	 * more than the horizon passed, as may happen when the simulation clock skips ahead.
+	 */
+	private void clearPassedHours() {
+		
+		int currentHour = getCurrentHour();
+		if(currentHour - clearedHour >= horizon) {
+			for(int type = 0; type < spotTypes.length; type++) {
+				Arrays.fill(maxBooked[type], 0);
+				Arrays.fill(pendingAdd[type], 0);
+			}
+			
+			clearedHour = currentHour;
+			return;
+		}
+		
+		for(; clearedHour < currentHour; clearedHour++) {
+			
+			int index = clearedHour & (horizon - 1);
+			for(int type = 0; type < spotTypes.length; type++) {
+				int booked = queryMax(type, 1, 0, horizon, index, index + 1);
+				if(booked != 0) add(type, 1, 0, horizon, index, index + 1, -booked);
+			}
+		}
+	}
+	
+	/**
+	 * Warns once that a window reaching beyond the horizon was refused.
+	 * 
+	 * @param end the simulated hour the window ends at, exclusive
+	 */
+	private void warnBeyondHorizon(int end) {
+		
+		if(warned) return;
+		warned = true;
+		
+		Logger.getInstance().log(Logger.LogLevel.WARN, Logger.LogCategory.PARKING, "Refusing bookings ending at simulated hour {}, the booking calendar only spans {} hours ahead", end, horizon);
+	}
+	
+	/**
+	 * Finds the most bookings of any hour of a window, which may wrap around the end of the trees.
+	 * 
+	 * @param type the spot type ordinal
+	 * @param start the first simulated hour of the window
+	 * @param end the simulated hour the window ends at, exclusive
+	 * @return the most bookings of any hour of the window
+	 */
+	private int queryWindow(int type, int start, int end) {
+		
+		int first = start & (horizon - 1);
+		int last = first + end - start;
+		if(last <= horizon) return queryMax(type, 1, 0, horizon, first, last);
+		
+		return Math.max(queryMax(type, 1, 0, horizon, first, horizon), queryMax(type, 1, 0, horizon, 0, last - horizon));
+	}
+	
+	/**
+	 * Adds to the bookings of every hour of a window, which may wrap around the end of the trees.
+	 * 
+	 * @param type the spot type ordinal
+	 * @param start the first simulated hour of the window
+	 * @param end the simulated hour the window ends at, exclusive
+	 * @param delta the bookings to add
+	 */
+	private void addWindow(int type, int start, int end, int delta) {
+		
+		int first = start & (horizon - 1);
+		int last = first + end - start;
+		add(type, 1, 0, horizon, first, Math.min(last, horizon), delta);
+		if(last > horizon) add(type, 1, 0, horizon, 0, last - horizon, delta);
+	}
+	
+	/**
+	 * Adds to the bookings of every hour in [start, end) within the node's range [lo, hi).
+	 * 
+	 * @param type the spot type ordinal
+	 * @param node the segment tree node
+	 * @param lo the first hour covered by the node
+	 * @param hi the hour the node's range ends at, exclusive
+	 * @param start the first hour to add to
+	 * @param end the hour to stop adding at, exclusive
+	 * @param delta the bookings to add
+	 */
+	private void add(int type, int node, int lo, int hi, int start, int end, int delta) {
+		
+		if(end <= lo || hi <= start) return;
+		
+		if(start <= lo && hi <= end) {
+			maxBooked[type][node] += delta;
+			pendingAdd[type][node] += delta;
+			return;
+		}
+		
+		int mid = (lo + hi) / 2;
+		add(type, 2 * node, lo, mid, start, end, delta);
+		add(type, 2 * node + 1, mid, hi, start, end, delta);
+		maxBooked[type][node] = pendingAdd[type][node] + Math.max(maxBooked[type][2 * node], maxBooked[type][2 * node + 1]);
+	}
+	
+	/**
+	 * Finds the most bookings of any hour in [start, end) within the node's range [lo, hi).
+	 * 
+	 * @param type the spot type ordinal
+	 * @param node the segment tree node
+	 * @param lo the first hour covered by the node
+	 * @param hi the hour the node's range ends at, exclusive
+	 * @param start the first hour to check
+	 * @param end the hour to stop checking at, exclusive
+	 * @return the most bookings of any hour checked
+	 */
+	private int queryMax(int type, int node, int lo, int hi, int start, int end) {
+		
+		// Nodes outside the range must not count, cleared hours may hold negative bookings below their node's pending additions
+		if(end <= lo || hi <= start) return Integer.MIN_VALUE;
+		if(start <= lo && hi <= end) return maxBooked[type][node];
+		
+		int mid = (lo + hi) / 2;
+		return pendingAdd[type][node] + Math.max(
+				queryMax(type, 2 * node, lo, mid, start, end),
+				queryMax(type, 2 * node + 1, mid, hi, start, end));
+	}
+	
+	/**
+	 * @return the simulated hours a booking may end past the current hour
+	 */
+	public static int getHorizon() {
+		return horizon;
+	}
+	
+	/**
+	 * @return the current simulated hour since the simulation started
+	 */
+	public static int getCurrentHour() {
+		return (int) ((SimulationClock.getInstance().now() - RunAgents.getSimulationStart()) / getHourLength());
+	}
+	
+	/**
+	 * @param hour the simulated hour
+	 * @return the simulation time in milliseconds the simulated hour starts at
+	 */
+	public static long getHourStart(int hour) {
+		return RunAgents.getSimulationStart() + hour * getHourLength();
+	}
+	
+	/**
+	 * @return the length of a simulated hour in milliseconds
+	 */
+	public static long getHourLength() {
+		return ParkingLotBehavior.simulatedHours * 1000L;
+	}
+}
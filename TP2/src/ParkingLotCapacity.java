@@ -0,0 +1,97 @@
+import java.awt.Point;
+import java.io.Serializable;
+
+public class ParkingLotCapacity implements Serializable {
+
+	private static final long serialVersionUID = 3357916845470262140L;
+	
+	String parkingLotName;
+	Point coords;
+	int hourlyCost;
+	int luxuryCostPercent;
+	int regularSpots;
+	int luxurySpots;
+	int handicapSpots;
+	
+	/**
+	 * Encapsulates the terms and the number of free spots per spot type of a parking lot agent.
+	 * Sent by parking lots to the batch matcher, which keeps its own count of free spots from then on.
+	 * 
+	 * @param parkingLotName the local name of the parking lot agent
+	 * @param coords the parking lot agent coordinates
+	 * @param hourlyCost the hourly cost of a spot
+	 * @param luxuryCostPercent the cost modifier for luxury spots
+	 * @param regularSpots the free regular spots
+	 * @param luxurySpots the free luxury spots
+	 * @param handicapSpots the free handicap spots
+	 */
+	public ParkingLotCapacity(String parkingLotName, Point coords, int hourlyCost, int luxuryCostPercent, int regularSpots, int luxurySpots, int handicapSpots) {
+		this.parkingLotName = parkingLotName;
+		this.coords = coords;
+		this.hourlyCost = hourlyCost;
+		this.luxuryCostPercent = luxuryCostPercent;
+		this.regularSpots = regularSpots;
+		this.luxurySpots = luxurySpots;
+		this.handicapSpots = handicapSpots;
+	}
+	
+	/**
+	 * Builds a parking lot proposal offering only the given spot type, so that car evaluators
+	 * value the parking lot as if that spot type was the one chosen.
+	 * 
+	 * @param spotType the spot type to offer
+	 * @return the parking lot proposal
+	 */
+	public ParkingLotProposal toProposal(ParkingLotAgent.SpotType spotType) {
+		return new ParkingLotProposal(coords, hourlyCost, luxuryCostPercent,
+				spotType == ParkingLotAgent.SpotType.REGULAR,
+				spotType == ParkingLotAgent.SpotType.LUXURY,
+				spotType == ParkingLotAgent.SpotType.HANDICAP);
+	}
+	
+	/**
+	 * @param spotType the spot type
+	 * @return the free spots of the given type
+	 */
+	public int getSpots(ParkingLotAgent.SpotType spotType) {
+		
+		switch(spotType) {
+		case REGULAR:
+			return regularSpots;
+		case LUXURY:
+			return luxurySpots;
+		case HANDICAP:
+			return handicapSpots;
+		}
+		
+		return 0;
+	}
+	
+	/**
+	 * Adds to the free spots of the given type.
+	 * 
+	 * @param spotType the spot type
+	 * @param delta the number of spots to add, negative to take spots
+	 */
+	public void addSpots(ParkingLotAgent.SpotType spotType, int delta) {
+		
+		switch(spotType) {
+		case REGULAR:
+			regularSpots += delta;
+			break;
+		case LUXURY:
+			luxurySpots += delta;
+			break;
+		case HANDICAP:
+			handicapSpots += delta;
+			break;
+		}
+	}
+
+	/**
+	 * @return the local name of the parking lot agent
+	 */
+	public String getParkingLotName() {
+		return parkingLotName;
+	}
+}
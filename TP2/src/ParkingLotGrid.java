@@ -0,0 +1,85 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public class ParkingLotGrid {
+
+	private static final int cellSize = 5;
+	
+	private ArrayList<Point> parkingLotCoords;
+	private HashMap<Long, ArrayList<Integer>> cells = new HashMap<Long, ArrayList<Integer>>();
+	
+	/**
+	 * Constructs a uniform grid spatial index over the parking lot coords. The world is split
+	 * into square cells the same size as the zoning boxes and each cell keeps the parking lots
+	 * inside it, so that radius queries only look at the cells the radius overlaps.
+	 * 
+	 * @param parkingLotCoords the parking lot coords, in the same order as the parking lot agents
+	 */
+	public ParkingLotGrid(ArrayList<Point> parkingLotCoords) {
+		
+		this.parkingLotCoords = parkingLotCoords;
+		
+		for(int i = 0; i < parkingLotCoords.size(); i++) {
+			
+			Point coords = parkingLotCoords.get(i);
+			long key = cellKey(Math.floorDiv(coords.x, cellSize), Math.floorDiv(coords.y, cellSize));
+			
+			if(!cells.containsKey(key)) {
+				cells.put(key, new ArrayList<Integer>());
+			}
+			cells.get(key).add(i);
+		}
+	}
+	
+	/**
+	 * @param cellX the cell column
+	 * @param cellY the cell row
+	 * @return the key of the cell in the cell map
+	 */
+	private long cellKey(int cellX, int cellY) {
+		return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+	}
+	
+	/**
+	 * Finds the parking lots whose rounded distance to the given coords is within the radius,
+	 * the same distance car evaluators use.
+	 * 
+	 * @param coords the coords to search from
+	 * @param radius the search radius
+	 * @return the indices of the parking lots found, in ascending order
+	 */
+	public ArrayList<Integer> findWithin(Point coords, int radius) {
+		
+		ArrayList<Integer> found = new ArrayList<Integer>();
+		
+		// Rounded distance is truncated, so anything closer than radius + 1 counts
+		long minCellX = Math.floorDiv((long) coords.x - radius - 1, cellSize);
+		long maxCellX = Math.floorDiv((long) coords.x + radius + 1, cellSize);
+		long minCellY = Math.floorDiv((long) coords.y - radius - 1, cellSize);
+		long maxCellY = Math.floorDiv((long) coords.y + radius + 1, cellSize);
+		
+		// Scanning every parking lot is cheaper than visiting mostly empty cells
+		if((maxCellX - minCellX + 1) * (maxCellY - minCellY + 1) > cells.size()) {
+			for(int i = 0; i < parkingLotCoords.size(); i++) {
+				if((int) coords.distance(parkingLotCoords.get(i)) <= radius) found.add(i);
+			}
+			return found;
+		}
+		
+		for(long cellX = minCellX; cellX <= maxCellX; cellX++) {
+			for(long cellY = minCellY; cellY <= maxCellY; cellY++) {
+				
+				ArrayList<Integer> cell = cells.get(cellKey((int) cellX, (int) cellY));
+				if(cell == null) continue;
+				
+				for(int i : cell) {
+					if((int) coords.distance(parkingLotCoords.get(i)) <= radius) found.add(i);
+				}
+			}
+		}
+		
+		found.sort(null);
+		return found;
+	}
+}
@@ -0,0 +1,60 @@
+public class ParkingLotHold {
+
+	private ParkingLotAgent.SpotType spotType;
+	private long expiry;
+	private int startHour;
+	private int endHour;
+	
+	/**
+	 * Encapsulates a tentative reservation of a parking lot spot made while a car agent
+	 * is still negotiating. The spot is already taken from the parking lot's vacancy and
+	 * must be either confirmed or released before the hold expires.
+	 * 
+	 * @param spotType the spot type held
+	 * @param expiry the time in milliseconds after which the hold is released
+	 * @param startHour the simulated hour the held spot's booking starts at
+	 * @param endHour the simulated hour the held spot's booking ends at
+	 */
+	public ParkingLotHold(ParkingLotAgent.SpotType spotType, long expiry, int startHour, int endHour) {
+		this.spotType = spotType;
+		this.expiry = expiry;
+		this.startHour = startHour;
+		this.endHour = endHour;
+	}
+
+	/**
+	 * @param now the current time in milliseconds
+	 * @return whether the hold has expired
+	 */
+	public boolean isExpired(long now) {
+		return now >= expiry;
+	}
+	
+	/**
+	 * @return the spot type held
+	 */
+	public ParkingLotAgent.SpotType getSpotType() {
+		return spotType;
+	}
+
+	/**
+	 * @return the time in milliseconds after which the hold is released
+	 */
+	public long getExpiry() {
+		return expiry;
+	}
+
+	/**
+	 * @return the simulated hour the held spot's booking starts at
+	 */
+	public int getStartHour() {
+		return startHour;
+	}
+
+	/**
+	 * @return the simulated hour the held spot's booking ends at
+	 */
+	public int getEndHour() {
+		return endHour;
+	}
+}
@@ -0,0 +1,176 @@
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+public class ParkingLotKdTree {
+
+	private ArrayList<Point> parkingLotCoords;
+	private int root;
+	
+	// Tree nodes are parking lot indices
+	private int[] left;
+	private int[] right;
+	private int[] parent;
+	private int[] axis;
+	
+	// Bitmasks of spot types with vacancy, for the parking lot and for its whole subtree
+	private int[] spotMask;
+	private int[] subtreeMask;
+	
+	/**
+	 * Constructs a k-d tree over the parking lot coords for nearest parking lot queries. Each node
+	 * also keeps which spot types still have vacancy in its subtree so that queries skip full
+	 * parking lots without visiting them. Every parking lot starts out assumed to have vacancy.
+	 * 
+	 * @param parkingLotCoords the parking lot coords, in the same order as the parking lot agents
+	 */
+	public ParkingLotKdTree(ArrayList<Point> parkingLotCoords) {
+		
+		int size = parkingLotCoords.size();
+		this.parkingLotCoords = parkingLotCoords;
+		this.left = new int[size];
+		this.right = new int[size];
+		this.parent = new int[size];
+		this.axis = new int[size];
+		this.spotMask = new int[size];
+		this.subtreeMask = new int[size];
+		
+		Arrays.fill(spotMask, ParkingLotAgent.allSpotsMask);
+		Arrays.fill(subtreeMask, ParkingLotAgent.allSpotsMask);
+		
+		Integer[] order = new Integer[size];
+		for(int i = 0; i < size; i++) {
+			order[i] = i;
+		}
+		
+		root = build(order, 0, size, 0, -1);
+	}
+	
+	/**
+	 * Builds a balanced subtree by splitting at the median of alternating axes.
+	 * 
+	 * @param order the parking lot indices being arranged
+	 * @param lo the first index of the subtree range, inclusive
+	 * @param hi the last index of the subtree range, exclusive
+	 * @param depth the depth of the subtree root
+	 * @param parentNode the parent of the subtree root, -1 for the root
+	 * @return the subtree root or -1 if the range is empty
+	 */
+	private int build(Integer[] order, int lo, int hi, int depth, int parentNode) {
+		
+		if(lo >= hi) return -1;
+		
+		int splitAxis = depth % 2;
+		Arrays.sort(order, lo, hi, (a, b) -> Integer.compare(coord(a, splitAxis), coord(b, splitAxis)));
+		
+		int mid = (lo + hi) / 2;
+		int node = order[mid];
+		axis[node] = splitAxis;
+		parent[node] = parentNode;
+		left[node] = build(order, lo, mid, depth + 1, node);
+		right[node] = build(order, mid + 1, hi, depth + 1, node);
+		
+		return node;
+	}
+	
+	/**
+	 * @param node the parking lot index
+	 * @param splitAxis 0 for x, 1 for y
+	 * @return the coordinate of the parking lot on the axis
+	 */
+	private int coord(int node, int splitAxis) {
+		return splitAxis == 0 ? parkingLotCoords.get(node).x : parkingLotCoords.get(node).y;
+	}
+	
+	/**
+	 * Updates the spot types with vacancy of a parking lot and of the subtrees above it.
+	 * 
+	 * @param parkingLotIndex the parking lot index
+	 * @param mask the bitmask of spot types with vacancy
+	 */
+	public synchronized void setSpotMask(int parkingLotIndex, int mask) {
+		
+		if(spotMask[parkingLotIndex] == mask) return;
+		spotMask[parkingLotIndex] = mask;
+		
+		for(int node = parkingLotIndex; node != -1; node = parent[node]) {
+			
+			int newMask = spotMask[node];
+			if(left[node] != -1) newMask |= subtreeMask[left[node]];
+			if(right[node] != -1) newMask |= subtreeMask[right[node]];
+			
+			if(subtreeMask[node] == newMask && node != parkingLotIndex) break;
+			subtreeMask[node] = newMask;
+		}
+	}
+	
+	/**
+	 * Finds the nearest parking lots with vacancy for at least one of the desired spot types,
+	 * within the given rounded distance and leaving out the excluded parking lots.
+	 * 
+	 * @param coords the coords to search from
+	 * @param k the maximum number of parking lots to find
+	 * @param radius the search radius
+	 * @param desiredMask the bitmask of desired spot types
+	 * @param excluded the parking lot indices to leave out
+	 * @return the indices of the parking lots found, nearest first
+	 */
+	public synchronized ArrayList<Integer> findNearest(Point coords, int k, int radius, int desiredMask, HashSet<Integer> excluded) {
+		
+		// Max heap on distance keeps the k best found so far
+		PriorityQueue<long[]> best = new PriorityQueue<long[]>((a, b) -> a[0] != b[0] ? Long.compare(b[0], a[0]) : Long.compare(b[1], a[1]));
+		search(root, coords, k, radius, desiredMask, excluded, best);
+		
+		ArrayList<Integer> found = new ArrayList<Integer>();
+		while(!best.isEmpty()) {
+			found.add((int) best.poll()[1]);
+		}
+		Collections.reverse(found);
+		
+		return found;
+	}
+	
+	/**
+	 * Recursive nearest neighbour search, visiting the side of the split nearest to the coords
+	 * first and the far side only if it may still hold a closer parking lot.
+	 * 
+	 * @param node the subtree root
+	 * @param coords the coords to search from
+	 * @param k the maximum number of parking lots to find
+	 * @param radius the search radius
+	 * @param desiredMask the bitmask of desired spot types
+	 * @param excluded the parking lot indices to leave out
+	 * @param best the best parking lots found so far
+	 */
+	private void search(int node, Point coords, int k, int radius, int desiredMask, HashSet<Integer> excluded, PriorityQueue<long[]> best) {
+		
+		if(node == -1 || (subtreeMask[node] & desiredMask) == 0) return;
+		
+		Point lotCoords = parkingLotCoords.get(node);
+		long dx = lotCoords.x - coords.x;
+		long dy = lotCoords.y - coords.y;
+		long sqDist = dx * dx + dy * dy;
+		
+		if((spotMask[node] & desiredMask) != 0 && !excluded.contains(node) && (int) coords.distance(lotCoords) <= radius) {
+			best.add(new long[] {sqDist, node});
+			if(best.size() > k) best.poll();
+		}
+		
+		long diff = (axis[node] == 0) ? coords.x - lotCoords.x : coords.y - lotCoords.y;
+		int near = (diff < 0) ? left[node] : right[node];
+		int far = (diff < 0) ? right[node] : left[node];
+		
+		search(near, coords, k, radius, desiredMask, excluded, best);
+		
+		// Rounded distances up to radius come from real distances below radius + 1
+		long maxSqDist = (long) radius + 1;
+		maxSqDist = (radius == Integer.MAX_VALUE) ? Long.MAX_VALUE : maxSqDist * maxSqDist;
+		if(diff * diff >= maxSqDist) return;
+		if(best.size() == k && diff * diff > best.peek()[0]) return;
+		
+		search(far, coords, k, radius, desiredMask, excluded, best);
+	}
+}
@@ -0,0 +1,143 @@
+import java.util.Date;
+
+import jade.core.Agent;
+import jade.domain.FIPAAgentManagement.FailureException;
+import jade.domain.FIPAAgentManagement.NotUnderstoodException;
+import jade.domain.FIPAAgentManagement.RefuseException;
+import jade.lang.acl.ACLMessage;
+import jade.proto.SSContractNetResponder;
+
+public class ParkingLotSessionBehavior extends SSContractNetResponder {
+
+	private static final long serialVersionUID = 2297816304625517183L;
+	
+	ParkingLotAgent agent;
+
+	/**
+	 * Constructs a parking lot behaviour responsible for a single ContractNetResponder session
+	 * in a FIPA ContractNet protocol, used when car agents negotiate concurrently. On cfp a spot
+	 * of the requested types is held for the car agent and only that spot is proposed. The hold
+	 * is confirmed on acceptance and released on rejection or when it expires. Car agents booking
+	 * ahead hold nothing, they are offered every spot type free during their booking instead.
+	 * 
+	 * @param a the parking lot agent
+	 * @param cfp the call for proposals message that started this session
+	 */
+	public ParkingLotSessionBehavior(Agent a, ACLMessage cfp) {
+		super(a, cfp);
+		this.agent = (ParkingLotAgent) a;
+	}
+	
+	/**
+	 * Builds a reply to a cfp message proposing only the spot type held for the car agent.
+	 * 
+	 * @param cfp the call for proposals received by this agent
+	 * @param hold the spot hold placed for the car agent
+	 * @return the ACLMessage to reply with
+	 */
+	private ACLMessage buildProposal(ACLMessage cfp, ParkingLotHold hold) {
+		
+		// Reuse the proposal encoded for the held spot type only
+		ACLMessage propose = buildProposal(cfp, 1 << hold.getSpotType().ordinal());
+		propose.setReplyByDate(new Date(SimulationClock.getInstance().toWallTime(hold.getExpiry())));
+
+		return propose;
+	}
+	
+	/**
+	 * Builds a reply to a cfp message proposing the given spot types.
+	 * 
+	 * @param cfp the call for proposals received by this agent
+	 * @param offeredMask the bitmask of the spot types offered
+	 * @return the ACLMessage to reply with
+	 */
+	private ACLMessage buildProposal(ACLMessage cfp, int offeredMask) {
+		
+		ACLMessage propose = cfp.createReply();
+		propose.setPerformative(ACLMessage.PROPOSE);
+		ProposalCodec.setEncodedContent(propose, agent.getEncodedProposal(offeredMask));
+
+		return propose;
+	}
+	
+	@Override
+	protected ACLMessage handleCfp(ACLMessage cfp) throws RefuseException, FailureException, NotUnderstoodException {
+		
+		String proposer = cfp.getSender().getLocalName();
+		CarAgentProposal carProposal = ProposalCodec.getCarAgentProposal(cfp);
+		
+		// Refuse early when the car agent would reject the proposal anyway, without holding a spot
+		if(RunAgents.isPrefiltering() && !agent.isWithinCarLimits(carProposal)) {
+			Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.PARKING, "Refusing to propose to {} because the parking lot is outside its limits", proposer);
+			throw new RefuseException("Outside car limits");
+		}
+		
+		// Offer the spot types free during an advance booking, they are only booked on acceptance
+		if(carProposal.isAdvanceBooking()) {
+			int offeredMask = agent.getOfferedMask(carProposal);
+			if((offeredMask & ParkingLotAgent.toSpotMask(carProposal.getDesiredSpots())) != 0) {
+				Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.PARKING, "Proposing advance booking to {}", proposer);
+				return buildProposal(cfp, offeredMask);
+			}
+			
+			Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.PARKING, "Refusing to propose to {} because no parking spots of the requested type are free during its booking", proposer);
+			throw new RefuseException("No spots free during booking");
+		}
+		
+		// Hold a spot of one of the types requested
+		ParkingLotHold hold = agent.placeHold(proposer, carProposal, cfp.getReplyByDate());
+		if(hold != null) {
+			Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.PARKING, "Holding {} spot and proposing to {}", hold.getSpotType(), proposer);
+			return buildProposal(cfp, hold);
+		} else {
+			Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.PARKING, "Refusing to propose to {} because no parking spots of the requested type are left", proposer);
+			throw new RefuseException("No empty spots left");
+		}
+	}
+	
+	@Override
+	protected ACLMessage handleAcceptProposal(ACLMessage cfp, ACLMessage propose, ACLMessage accept) throws FailureException {
+		
+		String proposer = accept.getSender().getLocalName();
+		CarAgentProposal carProposal = ProposalCodec.getCarAgentProposal(cfp);
+		
+		// Advance bookings are booked now, the spot may have been booked since proposing
+		if(carProposal.isAdvanceBooking()) {
+			ParkingLotAgent.SpotType desiredSpot = ParkingLotAgent.SpotType.valueOf(accept.getContent());
+			if(!agent.acceptSpot(proposer, carProposal, desiredSpot)) {
+				Logger.getInstance().log(Logger.LogLevel.WARN, Logger.LogCategory.PARKING, "No {} spot free during the booking of {}", desiredSpot, proposer);
+				throw new FailureException("No spots free during booking");
+			}
+			
+			Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.PARKING, "{} accepted proposal and booked spot type: {}", proposer, desiredSpot);
+			
+			ACLMessage inform = accept.createReply();
+			inform.setPerformative(ACLMessage.INFORM);
+			return inform;
+		}
+		
+		ParkingLotAgent.SpotType heldSpot = agent.confirmHold(proposer, carProposal);
+		
+		if(heldSpot == null) {
+			Logger.getInstance().log(Logger.LogLevel.WARN, Logger.LogCategory.PARKING, "{} accepted proposal after its hold expired", proposer);
+			throw new FailureException("Spot hold expired");
+		}
+		
+		Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.PARKING, "{} accepted proposal and occupied held spot type: {}", proposer, heldSpot);
+		
+		// Schedule a timer to restore the occupied spot
+		agent.scheduleDeparture(proposer, carProposal.getHoursNeeded());
+		
+		ACLMessage inform = accept.createReply();
+		inform.setPerformative(ACLMessage.INFORM);
+		return inform;
+	}
+	
+	@Override
+	protected void handleRejectProposal(ACLMessage cfp, ACLMessage propose, ACLMessage reject) {
+		
+		String proposer = reject.getSender().getLocalName();
+		agent.releaseHold(proposer);
+		Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.PARKING, "{} rejected proposal, releasing held spot", proposer);
+	}
+}
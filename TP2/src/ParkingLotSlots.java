@@ -0,0 +1,100 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class ParkingLotSlots {
+
+	private static final int wordBits = Long.SIZE;
+	private static final ParkingLotAgent.SpotType[] spotTypes = ParkingLotAgent.SpotType.values();
+	
+	// Slots are numbered per spot type in spot type order, one occupancy bitset per spot type
+	private int[] firstSlot = new int[spotTypes.length];
+	private int[] slotCount = new int[spotTypes.length];
+	private AtomicLongArray[] occupied = new AtomicLongArray[spotTypes.length];
+	
+	/**
+	 * Constructs the slot level occupancy of a parking lot. Each spot type has a bitset of occupied
+	 * slots whose words are updated with compare-and-set, so that claiming and freeing slots is lock-free
+	 * and allocation-free from both the agent and its timers.
+	 * 
+	 * @param regularSpots the regular slots
+	 * @param luxurySpots the luxury slots
+	 * @param handicapSpots the handicap slots
+	 */
+	public ParkingLotSlots(int regularSpots, int luxurySpots, int handicapSpots) {
+		
+		slotCount[ParkingLotAgent.SpotType.REGULAR.ordinal()] = regularSpots;
+		slotCount[ParkingLotAgent.SpotType.LUXURY.ordinal()] = luxurySpots;
+		slotCount[ParkingLotAgent.SpotType.HANDICAP.ordinal()] = handicapSpots;
+		
+		int slots = 0;
+		for(int i = 0; i < slotCount.length; i++) {
+			firstSlot[i] = slots;
+			occupied[i] = new AtomicLongArray((slotCount[i] + wordBits - 1) / wordBits);
+			slots += slotCount[i];
+		}
+	}
+	
+	/**
+	 * Occupies the lowest free slot of the given spot type.
+	 * 
+	 * @param spot the spot type
+	 * @return the slot occupied or -1 if every slot of the type is occupied
+	 */
+	public int claim(ParkingLotAgent.SpotType spot) {
+		
+		AtomicLongArray bits = occupied[spot.ordinal()];
+		int count = slotCount[spot.ordinal()];
+		
+		for(int word = 0; word < bits.length(); word++) {
+			
+			long current = bits.get(word);
+			while(current != -1L) {
+				
+				// Lowest clear bit of the word
+				int bit = Long.numberOfTrailingZeros(~current);
+				int slot = word * wordBits + bit;
+				if(slot >= count) break;
+				
+				if(bits.compareAndSet(word, current, current | (1L << bit))) {
+					return firstSlot[spot.ordinal()] + slot;
+				}
+				current = bits.get(word);
+			}
+		}
+		
+		return -1;
+	}
+	
+	/**
+	 * Frees an occupied slot.
+	 * 
+	 * @param slot the slot to free
+	 */
+	public void free(int slot) {
+		
+		ParkingLotAgent.SpotType spot = getSpotType(slot);
+		AtomicLongArray bits = occupied[spot.ordinal()];
+		
+		int typeSlot = slot - firstSlot[spot.ordinal()];
+		int word = typeSlot / wordBits;
+		long mask = 1L << (typeSlot % wordBits);
+		
+		long current = bits.get(word);
+		while(!bits.compareAndSet(word, current, current & ~mask)) {
+			current = bits.get(word);
+		}
+	}
+	
+	/**
+	 * @param slot the slot
+	 * @return the spot type of the slot
+	 */
+	public ParkingLotAgent.SpotType getSpotType(int slot) {
+		
+		// Spot types without slots share their first slot with the next type, so search from the last type
+		for(int i = spotTypes.length - 1; i > 0; i--) {
+			if(slot >= firstSlot[i]) return spotTypes[i];
+		}
+		
+		return spotTypes[0];
+	}
+}
@@ -0,0 +1,74 @@
+import java.awt.Point;
+import java.io.Serializable;
+
+public class ParkingLotStatus implements Serializable {
+
+	private static final long serialVersionUID = -4470921583120336519L;
+	
+	Point coords;
+	int hourlyCost;
+	int luxuryCostPercent;
+	int spotMask;
+	
+	/**
+	 * Encapsulates the terms and the spot types with vacancy of a parking lot agent. Sent by
+	 * parking lots to their district agent whenever the spot types with vacancy change.
+	 * 
+	 * @param coords the parking lot agent coordinates
+	 * @param hourlyCost the hourly cost of a spot
+	 * @param luxuryCostPercent the cost modifier for luxury spots
+	 * @param spotMask the bitmask of spot types with vacancy
+	 */
+	public ParkingLotStatus(Point coords, int hourlyCost, int luxuryCostPercent, int spotMask) {
+		this.coords = coords;
+		this.hourlyCost = hourlyCost;
+		this.luxuryCostPercent = luxuryCostPercent;
+		this.spotMask = spotMask;
+	}
+	
+	/**
+	 * Builds the parking lot proposal the parking lot agent would send, offering every spot type with vacancy.
+	 * 
+	 * @return the parking lot proposal
+	 */
+	public ParkingLotProposal toProposal() {
+		return new ParkingLotProposal(coords, hourlyCost, luxuryCostPercent,
+				hasVacancy(ParkingLotAgent.SpotType.REGULAR),
+				hasVacancy(ParkingLotAgent.SpotType.LUXURY),
+				hasVacancy(ParkingLotAgent.SpotType.HANDICAP));
+	}
+	
+	/**
+	 * @param spotType the spot type
+	 * @return whether the spot type has vacancy
+	 */
+	public boolean hasVacancy(ParkingLotAgent.SpotType spotType) {
+		return (spotMask & (1 << spotType.ordinal())) != 0;
+	}
+	
+	/**
+	 * Calculates the lowest hourly cost among the spot types with vacancy.
+	 * 
+	 * @return the lowest hourly cost or Integer.MAX_VALUE if there is no vacancy
+	 */
+	public int calcMinHourlyCost() {
+		
+		int minCost = Integer.MAX_VALUE;
+		if(hasVacancy(ParkingLotAgent.SpotType.REGULAR) || hasVacancy(ParkingLotAgent.SpotType.HANDICAP)) {
+			minCost = hourlyCost;
+		}
+		
+		if(hasVacancy(ParkingLotAgent.SpotType.LUXURY)) {
+			minCost = Math.min(minCost, (int) Math.round(hourlyCost * luxuryCostPercent / 100.0f));
+		}
+		
+		return minCost;
+	}
+
+	/**
+	 * @return the bitmask of spot types with vacancy
+	 */
+	public int getSpotMask() {
+		return spotMask;
+	}
+}
@@ -1,24 +1,20 @@
-import java.util.concurrent.ConcurrentHashMap;
-
 public class ParkingLotTimer implements Runnable {
 
 	private ParkingLotAgent agent;
-	private ConcurrentHashMap<String, ParkingLotAgent.SpotType> occupiedSpots;
-	private String keyToRemove;
+	private String carName;
+	private long deadline;
 	
 	/**
 	 * Constructs a parking lot timer responsible for vacating a parking lot spot when
-	 * the scheduled time has elapsed. Vacating a parking lot spot means updating the number
-	 * of spots available on the parking lot used to construct the timer.
+	 * the scheduled time has elapsed. Vacating a parking lot spot means freeing the slot
+	 * occupied by the car agent in the parking lot used to construct the timer.
 	 * 
 	 * @param agent the parking lot agent
-	 * @param hashMap the occupied spots hash map
-	 * @param keyToRemove the key to remove from the hash map
+	 * @param carName the local name of the car agent occupying the spot
 	 */
-	public ParkingLotTimer(ParkingLotAgent agent, ConcurrentHashMap<String, ParkingLotAgent.SpotType> hashMap, String keyToRemove) {
+	public ParkingLotTimer(ParkingLotAgent agent, String carName) {
 		this.agent = agent;
-		this.occupiedSpots = hashMap;
-		this.keyToRemove = keyToRemove;
+		this.carName = carName;
 	}
 	
 	@Override
@@ -32,24 +28,24 @@ public class ParkingLotTimer implements Runnable {
 	 */
 	private void updateSpots() {
 		
-		// Get spot type to remove and remove it
-		ParkingLotAgent.SpotType spotType = occupiedSpots.get(keyToRemove);
-		occupiedSpots.remove(keyToRemove);
-
-		// Restore spot of the same type
-		switch(spotType) {
-		case REGULAR:
-			agent.setRegularSpots(agent.getRegularSpots() + 1);
-			Logger.getInstance().logPrint(keyToRemove + " vacated REGULAR spot in " + agent.getLocalName());
-			break;
-		case LUXURY:
-			agent.setLuxurySpots(agent.getLuxurySpots() + 1);
-			Logger.getInstance().logPrint(keyToRemove + " vacated LUXURY spot in " + agent.getLocalName());
-			break;
-		case HANDICAP:
-			agent.setHandicapSpots(agent.getHandicapSpots() + 1);
-			Logger.getInstance().logPrint(keyToRemove + " vacated HANDICAP spot in " + agent.getLocalName());
-			break;
-		}
+		// Free the car's slot and restore its spot type, atomically since the agent may be taking spots at the same time
+		ParkingLotAgent.SpotType spotType = agent.vacateSpot(carName);
+		Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.PARKING, "{} vacated {} spot in {}", carName, spotType, agent.getLocalName());
+		
+		agent.publishVacancy(spotType);
+	}
+	
+	/**
+	 * @return the time in milliseconds the timer is due, set by schedulers keeping their own timers
+	 */
+	public long getDeadline() {
+		return deadline;
+	}
+	
+	/**
+	 * @param deadline the time in milliseconds the timer is due
+	 */
+	public void setDeadline(long deadline) {
+		this.deadline = deadline;
 	}
 }
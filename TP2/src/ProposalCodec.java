@@ -0,0 +1,335 @@
+import java.awt.Point;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.UnreadableException;
+
+public class ProposalCodec {
+
+	// ACL languages tagging byte sequence content encoded by this codec
+	public static final String binaryLanguage = "parking-binary";
+	public static final String handleLanguage = "parking-handle";
+	
+	// Fixed layouts, ints followed by bytes
+	private static final int carProposalSize = 6 * Integer.BYTES + 2;
+	private static final int parkingLotProposalSize = 4 * Integer.BYTES + 1;
+	
+	/**
+	 * Private constructor, the codec only has static methods.
+	 */
+	private ProposalCodec() {}
+	
+	/**
+	 * Sets the content of a message to the car agent terms, encoded with the codec in use.
+	 * 
+	 * @param msg the message to set the content of
+	 * @param proposal the car agent terms
+	 */
+	public static void setContent(ACLMessage msg, CarAgentProposal proposal) {
+		setEncodedContent(msg, toBytes(proposal));
+	}
+	
+	/**
+	 * Sets the content of a message to the parking lot proposal, encoded with the codec in use.
+	 * 
+	 * @param msg the message to set the content of
+	 * @param proposal the parking lot proposal
+	 */
+	public static void setContent(ACLMessage msg, ParkingLotProposal proposal) {
+		setEncodedContent(msg, toBytes(proposal));
+	}
+	
+	/**
+	 * Encodes the car agent terms as message content bytes, in the binary layout, as a handle
+	 * or as a serialized Java object depending on the codec in use.
+	 * 
+	 * @param proposal the car agent terms
+	 * @return the content bytes
+	 */
+	public static byte[] toBytes(CarAgentProposal proposal) {
+		
+		switch(RunAgents.getContentCodec()) {
+		case BINARY:
+			return encode(proposal);
+		case HANDLE:
+			return encodeHandle(proposal);
+		default:
+			return serialize(proposal);
+		}
+	}
+	
+	/**
+	 * Encodes a parking lot proposal as message content bytes, in the binary layout, as a handle
+	 * or as a serialized Java object depending on the codec in use, so that the bytes can be reused
+	 * across messages.
+	 * 
+	 * @param proposal the parking lot proposal
+	 * @return the content bytes
+	 */
+	public static byte[] toBytes(ParkingLotProposal proposal) {
+		
+		switch(RunAgents.getContentCodec()) {
+		case BINARY:
+			return encode(proposal);
+		case HANDLE:
+			return encodeHandle(proposal);
+		default:
+			return serialize(proposal);
+		}
+	}
+	
+	/**
+	 * Sets the content of a message to bytes previously encoded by toBytes, tagging the message with
+	 * the language of the codec in use. Serialized objects are carried as byte sequence content too,
+	 * which is what getContentObject reads back.
+	 * 
+	 * @param msg the message to set the content of
+	 * @param bytes the content bytes
+	 */
+	public static void setEncodedContent(ACLMessage msg, byte[] bytes) {
+		
+		switch(RunAgents.getContentCodec()) {
+		case BINARY:
+			msg.setLanguage(binaryLanguage);
+			break;
+		case HANDLE:
+			if(receiversInJvm(msg)) {
+				msg.setLanguage(handleLanguage);
+				break;
+			}
+			
+			// A receiver elsewhere can't resolve the handle, the proposal is sent in the binary layout instead
+			bytes = encodeResolved(ProposalHandles.getInstance().resolve(ByteBuffer.wrap(bytes).getLong()));
+			msg.setLanguage(binaryLanguage);
+			break;
+		default:
+			msg.setLanguage(null);
+			break;
+		}
+		
+		msg.setByteSequenceContent(bytes);
+	}
+	
+	/**
+	 * @param msg the message to check the receivers of
+	 * @return true if every receiver of the message is an agent started in this JVM
+	 */
+	private static boolean receiversInJvm(ACLMessage msg) {
+		
+		Iterator<?> receivers = msg.getAllReceiver();
+		while(receivers.hasNext()) {
+			if(!ProposalHandles.getInstance().isLocalAgent(((AID) receivers.next()).getName())) return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * @param proposal the car agent terms or parking lot proposal a handle resolved to
+	 * @return the proposal encoded in the binary layout
+	 */
+	private static byte[] encodeResolved(Object proposal) {
+		
+		if(proposal instanceof CarAgentProposal) return encode((CarAgentProposal) proposal);
+		return encode((ParkingLotProposal) proposal);
+	}
+	
+	/**
+	 * Extracts the car agent terms from a message according to its language tag, falling back to
+	 * Java serialization for untagged messages.
+	 * 
+	 * @param msg the message to get the car agent terms from
+	 * @return the car agent terms
+	 */
+	public static CarAgentProposal getCarAgentProposal(ACLMessage msg) {
+		
+		if(binaryLanguage.equals(msg.getLanguage())) {
+			return decodeCarAgentProposal(msg.getByteSequenceContent());
+		} else if(handleLanguage.equals(msg.getLanguage())) {
+			return (CarAgentProposal) decodeHandle(msg.getByteSequenceContent());
+		}
+		
+		return (CarAgentProposal) getSerializedContent(msg);
+	}
+	
+	/**
+	 * Extracts the parking lot proposal from a message according to its language tag, falling back to
+	 * Java serialization for untagged messages.
+	 * 
+	 * @param msg the message to get the parking lot proposal from
+	 * @return the parking lot proposal
+	 */
+	public static ParkingLotProposal getParkingLotProposal(ACLMessage msg) {
+		
+		if(binaryLanguage.equals(msg.getLanguage())) {
+			return decodeParkingLotProposal(msg.getByteSequenceContent());
+		} else if(handleLanguage.equals(msg.getLanguage())) {
+			return (ParkingLotProposal) decodeHandle(msg.getByteSequenceContent());
+		}
+		
+		return (ParkingLotProposal) getSerializedContent(msg);
+	}
+	
+	/**
+	 * Encodes a proposal as the handle it is shared by within the JVM. Only agents in the same JVM
+	 * can resolve the handle, messages to other receivers fall back to the binary layout when sent.
+	 * 
+	 * @param proposal the proposal object
+	 * @return the encoded handle
+	 */
+	private static byte[] encodeHandle(Object proposal) {
+		return ByteBuffer.allocate(Long.BYTES).putLong(ProposalHandles.getInstance().getHandle(proposal)).array();
+	}
+	
+	/**
+	 * @param bytes the encoded handle
+	 * @return the proposal object shared by the handle
+	 */
+	private static Object decodeHandle(byte[] bytes) {
+		
+		long handle = ByteBuffer.wrap(bytes).getLong();
+		Object proposal = ProposalHandles.getInstance().resolve(handle);
+		if(proposal == null) {
+			throw new IllegalArgumentException("Unknown proposal handle " + handle + ", handles only work between agents in the same JVM!");
+		}
+		
+		return proposal;
+	}
+	
+	/**
+	 * Encodes the car agent terms as coords, max hourly cost, max distance, hours needed and start delay
+	 * followed by the desired spot types bitmask and the evaluator type.
+	 * 
+	 * @param proposal the car agent terms
+	 * @return the encoded bytes
+	 */
+	public static byte[] encode(CarAgentProposal proposal) {
+		
+		ByteBuffer buffer = ByteBuffer.allocate(carProposalSize);
+		buffer.putInt(proposal.getCoords().x);
+		buffer.putInt(proposal.getCoords().y);
+		buffer.putInt(proposal.getMaxHourlyCost());
+		buffer.putInt(proposal.getMaxDistance());
+		buffer.putInt(proposal.getHoursNeeded());
+		buffer.putInt(proposal.getStartDelay());
+		buffer.put((byte) ParkingLotAgent.toSpotMask(proposal.getDesiredSpots()));
+		buffer.put((byte) proposal.getEvaluatorType());
+		
+		return buffer.array();
+	}
+	
+	/**
+	 * Encodes the parking lot proposal as coords, hourly cost and luxury cost modifier
+	 * followed by the offered spot types bitmask.
+	 * 
+	 * @param proposal the parking lot proposal
+	 * @return the encoded bytes
+	 */
+	public static byte[] encode(ParkingLotProposal proposal) {
+		
+		int spotMask = 0;
+		if(proposal.isHasRegular()) spotMask |= 1 << ParkingLotAgent.SpotType.REGULAR.ordinal();
+		if(proposal.isHasLuxury()) spotMask |= 1 << ParkingLotAgent.SpotType.LUXURY.ordinal();
+		if(proposal.isHasHandicap()) spotMask |= 1 << ParkingLotAgent.SpotType.HANDICAP.ordinal();
+		
+		ByteBuffer buffer = ByteBuffer.allocate(parkingLotProposalSize);
+		buffer.putInt(proposal.getCoords().x);
+		buffer.putInt(proposal.getCoords().y);
+		buffer.putInt(proposal.getHourlyCost());
+		buffer.putInt(proposal.getLuxuryCostPercent());
+		buffer.put((byte) spotMask);
+		
+		return buffer.array();
+	}
+	
+	/**
+	 * Decodes car agent terms encoded by {@link #encode(CarAgentProposal)}. Desired spot types
+	 * are restored in spot type order.
+	 * 
+	 * @param bytes the encoded bytes
+	 * @return the car agent terms
+	 */
+	public static CarAgentProposal decodeCarAgentProposal(byte[] bytes) {
+		
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		Point coords = new Point(buffer.getInt(), buffer.getInt());
+		int maxHourlyCost = buffer.getInt();
+		int maxDistance = buffer.getInt();
+		int hoursNeeded = buffer.getInt();
+		int startDelay = buffer.getInt();
+		int spotMask = buffer.get();
+		int evaluatorType = buffer.get();
+		
+		ArrayList<ParkingLotAgent.SpotType> desiredSpots = new ArrayList<ParkingLotAgent.SpotType>();
+		for(ParkingLotAgent.SpotType spot : ParkingLotAgent.SpotType.values()) {
+			if((spotMask & (1 << spot.ordinal())) != 0) desiredSpots.add(spot);
+		}
+		
+		return new CarAgentProposal(coords, maxHourlyCost, maxDistance, hoursNeeded, desiredSpots.toArray(new ParkingLotAgent.SpotType[0]), evaluatorType, startDelay);
+	}
+	
+	/**
+	 * Decodes a parking lot proposal encoded by {@link #encode(ParkingLotProposal)}.
+	 * 
+	 * @param bytes the encoded bytes
+	 * @return the parking lot proposal
+	 */
+	public static ParkingLotProposal decodeParkingLotProposal(byte[] bytes) {
+		
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		Point coords = new Point(buffer.getInt(), buffer.getInt());
+		int hourlyCost = buffer.getInt();
+		int luxuryCostPercent = buffer.getInt();
+		int spotMask = buffer.get();
+		
+		return new ParkingLotProposal(coords, hourlyCost, luxuryCostPercent,
+				(spotMask & (1 << ParkingLotAgent.SpotType.REGULAR.ordinal())) != 0,
+				(spotMask & (1 << ParkingLotAgent.SpotType.LUXURY.ordinal())) != 0,
+				(spotMask & (1 << ParkingLotAgent.SpotType.HANDICAP.ordinal())) != 0);
+	}
+	
+	/**
+	 * @param content the object to serialize
+	 * @return the serialized object bytes
+	 */
+	private static byte[] serialize(Serializable content) {
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(content);
+			out.close();
+		} catch(IOException e) {
+			e.printStackTrace();
+			System.err.println("I/O Exception serializing ACLMessage content!");
+			System.exit(1);
+		}
+		
+		return bytes.toByteArray();
+	}
+	
+	/**
+	 * @param msg the message to get the content of
+	 * @return the deserialized content object
+	 */
+	private static Object getSerializedContent(ACLMessage msg) {
+		
+		Object content = null;
+		try {
+			content = msg.getContentObject();
+		} catch(UnreadableException e) {
+			e.printStackTrace();
+			System.err.println("Error occured during the decoding of the content of the ACLMessage!");
+			System.exit(1);
+		}
+		
+		return content;
+	}
+}
@@ -0,0 +1,72 @@
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ProposalHandles {
+
+	private static ProposalHandles singleton = new ProposalHandles();
+	
+	private AtomicLong nextHandle = new AtomicLong();
+	private ConcurrentHashMap<Long, Object> proposals = new ConcurrentHashMap<Long, Object>();
+	private Map<Object, Long> handles = Collections.synchronizedMap(new IdentityHashMap<Object, Long>());
+	private Set<String> localAgents = ConcurrentHashMap.newKeySet();
+	
+	/**
+	 * Private constructor for singleton pattern.
+	 */
+	private ProposalHandles() {}
+	
+	/**
+	 * @return the singleton instance of the class
+	 */
+	public static ProposalHandles getInstance( ) {
+		return singleton;
+	}
+	
+	/**
+	 * Returns the handle of a proposal object, registering it the first time. Proposals are never
+	 * modified once built and are long lived, the car agent terms and the cached parking lot proposals,
+	 * so they are registered once and shared by reference with every agent in the JVM.
+	 * Registered proposals are kept for the whole run, since a parking lot only caches the encoded
+	 * handle, which bounds them to one per car agent and one per offered spot types bitmask per parking lot.
+	 * 
+	 * @param proposal the proposal object
+	 * @return the handle of the proposal
+	 */
+	public long getHandle(Object proposal) {
+		
+		return handles.computeIfAbsent(proposal, p -> {
+			long handle = nextHandle.getAndIncrement();
+			proposals.put(handle, p);
+			return handle;
+		});
+	}
+	
+	/**
+	 * @param handle the handle of a proposal
+	 * @return the proposal object or null if the handle wasn't registered in this JVM
+	 */
+	public Object resolve(long handle) {
+		return proposals.get(handle);
+	}
+	
+	/**
+	 * Registers an agent started in this JVM, which is able to resolve handles.
+	 * 
+	 * @param agentName the full name of the agent
+	 */
+	public void addLocalAgent(String agentName) {
+		localAgents.add(agentName);
+	}
+	
+	/**
+	 * @param agentName the full name of an agent
+	 * @return true if the agent was started in this JVM
+	 */
+	public boolean isLocalAgent(String agentName) {
+		return localAgents.contains(agentName);
+	}
+}
@@ -0,0 +1,87 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.lang.acl.ACLMessage;
+
+public class QueueCoordinatorAgent extends Agent {
+
+	private static final long serialVersionUID = 6153083462095771542L;
+	
+	// Negotiation turn messages
+	public static final String coordinatorName = "QueueCoordinator";
+	public static final String turnOntology = "negotiation-turn";
+	public static final String turnGiven = "TURN";
+	public static final String turnDone = "DONE";
+	
+	private LinkedHashMap<String, ArrayList<ArrayDeque<String>>> carQueues;
+	
+	public void setup() {
+		
+		carQueues = RunAgents.getCarQueues();
+		
+		// Give a turn to every car that isn't waiting behind another car
+		for(Map.Entry<String, ArrayList<ArrayDeque<String>>> entry : carQueues.entrySet()) {
+			if(isHeadOfAllQueues(entry.getKey())) {
+				giveTurn(entry.getKey());
+			}
+		}
+		
+		addBehaviour(new QueueCoordinatorBehavior(this));
+	}
+	
+	/**
+	 * Removes a car agent that finished negotiating from its queues and gives a turn to the cars
+	 * that are now at the head of all their queues. Since a car only leaves its queues after
+	 * negotiating, each car is given exactly one turn.
+	 * 
+	 * @param carName the local name of the car agent that finished negotiating
+	 */
+	public void endTurn(String carName) {
+		
+		ArrayList<ArrayDeque<String>> queues = carQueues.get(carName);
+		for(ArrayDeque<String> queue : queues) {
+			
+			queue.remove(carName);
+			String nextCar = queue.peek();
+			
+			if(nextCar == null) {
+				Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.SYSTEM, "Waiting cars queue emptied, no more negotiations to do!");
+			} else if(isHeadOfAllQueues(nextCar)) {
+				giveTurn(nextCar);
+			}
+		}
+	}
+	
+	/**
+	 * @param carName the local name of the car agent
+	 * @return whether the car agent is at the head of all its queues
+	 */
+	private boolean isHeadOfAllQueues(String carName) {
+		
+		for(ArrayDeque<String> queue : carQueues.get(carName)) {
+			if(!carName.equals(queue.peek())) return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Sends the message allowing a car agent to start negotiating.
+	 * 
+	 * @param carName the local name of the car agent
+	 */
+	private void giveTurn(String carName) {
+		
+		Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.NEGOTIATION, "Giving negotiation turn to {}", carName);
+		
+		ACLMessage turn = new ACLMessage(ACLMessage.INFORM);
+		turn.addReceiver(new AID(carName, AID.ISLOCALNAME));
+		turn.setOntology(turnOntology);
+		turn.setContent(turnGiven);
+		send(turn);
+	}
+}
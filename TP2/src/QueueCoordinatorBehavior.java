@@ -0,0 +1,40 @@
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+
+public class QueueCoordinatorBehavior extends CyclicBehaviour {
+
+	private static final long serialVersionUID = 1894637024757203147L;
+
+	QueueCoordinatorAgent agent;
+	
+	private MessageTemplate template = MessageTemplate.and(
+			MessageTemplate.MatchOntology(QueueCoordinatorAgent.turnOntology),
+			MessageTemplate.MatchPerformative(ACLMessage.INFORM));
+	
+	/**
+	 * Constructs a queue coordinator behaviour responsible for receiving the messages car
+	 * agents send once their negotiation has ended and passing the turn on.
+	 * 
+	 * @param a the queue coordinator agent
+	 */
+	public QueueCoordinatorBehavior(Agent a) {
+		super(a);
+		this.agent = (QueueCoordinatorAgent) a;
+	}
+	
+	@Override
+	public void action() {
+		
+		ACLMessage msg = myAgent.receive(template);
+		if(msg == null) {
+			block();
+			return;
+		}
+		
+		String carName = msg.getSender().getLocalName();
+		Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.NEGOTIATION, "{} finished negotiating", carName);
+		agent.endTurn(carName);
+	}
+}
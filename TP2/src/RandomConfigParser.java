@@ -129,6 +129,7 @@ public class RandomConfigParser {
 	public void printConfig() {
 		
 		Logger logger = Logger.getInstance();
+		if(!logger.isEnabled(Logger.LogLevel.INFO, Logger.LogCategory.SYSTEM)) return;
 		
 		logger.logPrint("CONFIG FILE PRINT START");
 		logger.logPrint("Number of car agents: " + numCarAgents);
@@ -0,0 +1,92 @@
+public class ResponseTimeStats {
+
+	// Latency estimation parameters
+	private static final double ewmaWeight = 0.2;
+	private static final int buckets = 48;
+	private static final double bucketGrowth = 1.25;
+	private static final int maxSamples = 1000;
+	private static final int minSamples = 10;
+	
+	private double ewma = 0;
+	private int[] histogram = new int[buckets];
+	private int samples = 0;
+	private int missedStreak = 0;
+	private long excludedUntil = 0;
+	
+	/**
+	 * Keeps the observed response times of a single parking lot agent as an exponentially weighted
+	 * moving average plus a log scale histogram used to estimate the 99th percentile. Histogram counts
+	 * are halved once they grow large so that old samples fade out. Also counts missed deadlines in a row.
+	 */
+	public ResponseTimeStats() {}
+	
+	/**
+	 * Records a response received before the deadline, which also ends any missed deadline streak.
+	 * 
+	 * @param latency the time in milliseconds between sending the cfp and receiving the response
+	 */
+	public synchronized void recordResponse(long latency) {
+		
+		ewma = (samples == 0) ? latency : ewma + ewmaWeight * (latency - ewma);
+		
+		int bucket = (latency <= 1) ? 0 : (int) Math.ceil(Math.log(latency) / Math.log(bucketGrowth));
+		histogram[Math.min(bucket, buckets - 1)]++;
+		samples++;
+		
+		// Fade out old samples
+		if(samples >= maxSamples) {
+			samples = 0;
+			for(int i = 0; i < buckets; i++) {
+				histogram[i] /= 2;
+				samples += histogram[i];
+			}
+		}
+		
+		missedStreak = 0;
+	}
+	
+	/**
+	 * Records a deadline missed, excluding the parking lot for a while once it misses too many in a row.
+	 * 
+	 * @param now the current time in milliseconds
+	 * @param maxMissed the missed deadlines in a row that exclude the parking lot
+	 * @param exclusionTime the time in milliseconds the parking lot stays excluded
+	 */
+	public synchronized void recordMiss(long now, int maxMissed, long exclusionTime) {
+		
+		missedStreak++;
+		if(missedStreak >= maxMissed) {
+			excludedUntil = now + exclusionTime;
+		}
+	}
+	
+	/**
+	 * @param now the current time in milliseconds
+	 * @return whether the parking lot is excluded from cfps
+	 */
+	public synchronized boolean isExcluded(long now) {
+		return now < excludedUntil;
+	}
+	
+	/**
+	 * Estimates the response time this parking lot stays under 99% of the time. Not enough
+	 * samples give a negative estimate, meaning no deadline can be learned yet.
+	 * 
+	 * @return the estimated 99th percentile response time in milliseconds
+	 */
+	public synchronized long estimateWorstLatency() {
+		
+		if(samples < minSamples) return -1;
+		
+		int target = (int) Math.ceil(samples * 0.99);
+		int seen = 0;
+		int bucket = 0;
+		for(; bucket < buckets - 1; bucket++) {
+			seen += histogram[bucket];
+			if(seen >= target) break;
+		}
+		
+		long p99 = (long) Math.ceil(Math.pow(bucketGrowth, bucket));
+		return Math.max(p99, (long) Math.ceil(ewma));
+	}
+}
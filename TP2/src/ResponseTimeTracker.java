@@ -0,0 +1,90 @@
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ResponseTimeTracker {
+	
+	// Deadline parameters
+	private static final long maxDeadline = 10000;
+	private static final long minDeadline = 250;
+	private static final float safetyFactor = 1.5f;
+	private static final int maxMissed = 3;
+	private static final long exclusionTime = 30000;
+	
+	private static ResponseTimeTracker singleton = new ResponseTimeTracker();
+	
+	private ConcurrentHashMap<String, ResponseTimeStats> parkingLotStats = new ConcurrentHashMap<String, ResponseTimeStats>();
+	
+	/**
+	 * Private constructor for singleton pattern.
+	 */
+	private ResponseTimeTracker() {}
+	
+	/**
+	 * @return the singleton instance of the class
+	 */
+	public static ResponseTimeTracker getInstance( ) {
+		return singleton;
+	}
+	
+	/**
+	 * @param parkingLotName the local name of the parking lot agent
+	 * @return the response time stats of the parking lot agent
+	 */
+	private ResponseTimeStats getStats(String parkingLotName) {
+		return parkingLotStats.computeIfAbsent(parkingLotName, name -> new ResponseTimeStats());
+	}
+	
+	/**
+	 * @param parkingLotName the local name of the parking lot agent that answered a cfp
+	 * @param latency the time in milliseconds between sending the cfp and receiving the answer
+	 */
+	public void recordResponse(String parkingLotName, long latency) {
+		getStats(parkingLotName).recordResponse(latency);
+	}
+	
+	/**
+	 * @param parkingLotName the local name of the parking lot agent that didn't answer a cfp in time
+	 */
+	public void recordMiss(String parkingLotName) {
+		
+		ResponseTimeStats stats = getStats(parkingLotName);
+		stats.recordMiss(System.currentTimeMillis(), maxMissed, exclusionTime);
+		
+		if(stats.isExcluded(System.currentTimeMillis())) {
+			Logger.getInstance().log(Logger.LogLevel.WARN, Logger.LogCategory.NEGOTIATION, "{} keeps missing deadlines, excluded from cfps for {}ms", parkingLotName, exclusionTime);
+		}
+	}
+	
+	/**
+	 * Parking lots that missed too many deadlines are left out of cfps until their exclusion
+	 * ends, after which the next cfp works as a probe.
+	 * 
+	 * @param parkingLotName the local name of the parking lot agent
+	 * @return whether the parking lot agent should be sent cfps
+	 */
+	public boolean isExcluded(String parkingLotName) {
+		return getStats(parkingLotName).isExcluded(System.currentTimeMillis());
+	}
+	
+	/**
+	 * Calculates a cfp deadline from the worst expected responder among the receivers. Falls back
+	 * to the maximum deadline while any receiver has too few samples.
+	 * 
+	 * @param parkingLotNames the local names of the parking lot agents receiving the cfp
+	 * @return the time in milliseconds to wait for answers
+	 */
+	public long calcDeadline(Collection<String> parkingLotNames) {
+		
+		long worstLatency = 0;
+		for(String parkingLotName : parkingLotNames) {
+			
+			long latency = getStats(parkingLotName).estimateWorstLatency();
+			if(latency < 0) return maxDeadline;
+			
+			worstLatency = Math.max(worstLatency, latency);
+		}
+		
+		long deadline = (long) Math.ceil(worstLatency * safetyFactor);
+		return Math.min(maxDeadline, Math.max(minDeadline, deadline));
+	}
+}
@@ -2,9 +2,13 @@ import jade.core.Runtime;
 
 import java.awt.Point;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Random;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.TreeSet;
 
 import jade.core.Profile;
 import jade.core.ProfileImpl;
@@ -12,6 +16,24 @@ import jade.wrapper.*;
 
 public class RunAgents {
 
+	// Negotiation scheduling modes
+	public enum NegotiationMode {QUEUE, ZONED, CONCURRENT, BATCH}
+	
+	// Proposal content codecs
+	public enum ContentCodec {SERIALIZED, BINARY, HANDLE}
+	
+	// Schedulers of parking lot departures
+	public enum DepartureScheduler {EXECUTOR, WHEEL, HEAP}
+	
+	// Simulation clocks, wall clock time or discrete-event virtual time
+	public enum ClockMode {REAL, VIRTUAL}
+	
+	// Logging modes
+	public enum LogMode {SYNC, ASYNC}
+	
+	// Threads running simulation callbacks
+	public enum ThreadMode {PLATFORM, VIRTUAL}
+
 	private static String randomConfigPath;
 	private static String carConfigPath;
 	private static String lotConfigPath;
@@ -29,24 +51,56 @@ public class RunAgents {
 	private static final int randomConfigI = 1;
 	private static final int carConfigI = 1;
 	private static final int lotConfigI = 2;
+	private static final int randomOptionsI = 2;
+	private static final int fixedOptionsI = 3;
+	
+	// Launch options
+	private static NegotiationMode negotiationMode = NegotiationMode.QUEUE;
+	private static int batchWindow = 2000;
+	private static float earlyCloseSatisfaction = -1;
+	private static boolean adaptiveDeadlines = false;
+	private static int nearestLots = 0;
+	private static boolean districts = false;
+	private static boolean prefilter = false;
+	private static ContentCodec contentCodec = ContentCodec.SERIALIZED;
+	private static boolean vacancyBoard = false;
+	private static int maxBookingDelay = 0;
+	private static DepartureScheduler departureScheduler = DepartureScheduler.EXECUTOR;
+	private static ClockMode clockMode = ClockMode.REAL;
+	private static ThreadMode threadMode = ThreadMode.PLATFORM;
+	private static LogMode logMode = LogMode.SYNC;
+	private static Logger.OverflowPolicy logOverflow = Logger.OverflowPolicy.BLOCK;
 	
 	// Config indices
 	private static final int fixedXCoordI = 1;
 	private static final int fixedYCoordI = 2;
+	private static final int maxDistanceI = 4;
 	private static final int regularSpotI = 5;
 	private static final int luxurySpotI = 6;
 	private static final int handicapSpotI = 7;
+	private static final int evaluatorI = 9;
 	
 	// Car agent / Parking lot agent world information
+	private static final String carNamePrefix = "Car";
 	private static ArrayList<Point> parkingLotCoords = new ArrayList<Point>();
+	private static ParkingLotGrid parkingLotGrid;
+	private static ParkingLotKdTree parkingLotKdTree;
+	private static HashMap<String, Integer> parkingLotIndices = new HashMap<String, Integer>();
+	private static ArrayList<String> districtNames = new ArrayList<String>();
 	private static ArrayList<Point> carCoords = new ArrayList<Point>();
 	private static ArrayList<AgentController> parkingLotAgents = new ArrayList<AgentController>();
 	private static ArrayList<AgentController> carAgents = new ArrayList<AgentController>();
+	private static ArrayList<Object[]> carAgentArgs = new ArrayList<Object[]>();
 	private static ArrayList<Object[]> carConfigArgs;
 	private static ArrayList<Object[]> lotConfigArgs;
 	
-	// Queue of cars awaiting negotiation
-	private static LinkedBlockingQueue<String> waitingCars = new LinkedBlockingQueue<String>();
+	// Time the simulated hours are counted from
+	private static long simulationStart;
+	
+	// Queues of cars awaiting negotiation, a single queue or one per zone, only used by the queue coordinator once agents start
+	private static ArrayDeque<String> waitingCars = new ArrayDeque<String>();
+	private static HashMap<Integer, ArrayDeque<String>> zoneQueues = new HashMap<Integer, ArrayDeque<String>>();
+	private static LinkedHashMap<String, ArrayList<ArrayDeque<String>>> carQueues = new LinkedHashMap<String, ArrayList<ArrayDeque<String>>>();
 	
 	public static void main(String[] args) throws IOException {
 		
@@ -100,6 +154,7 @@ public class RunAgents {
 		// Parse config paths
 		if(isRandom) {
 			randomConfigPath = args[randomConfigI];
+			parseOptions(args, randomOptionsI);
 		} else {
 			
 			// Check minimum args are present
@@ -110,7 +165,125 @@ public class RunAgents {
 			
 			carConfigPath = args[carConfigI];
 			lotConfigPath = args[lotConfigI];
+			parseOptions(args, fixedOptionsI);
+		}
+	}
+	
+	/**
+	 * Parses the optional launch options that follow the config paths. Options are
+	 * given as key=value pairs, unknown options or values print usage and exit.
+	 * 
+	 * @param args the command line arguments
+	 * @param firstOptionI the index of the first option argument
+	 */
+	private static void parseOptions(String[] args, int firstOptionI) {
+		
+		for(int i = firstOptionI; i < args.length; i++) {
+			
+			String[] option = args[i].split("=");
+			if(option.length != 2) {
+				printUsage();
+				System.exit(0);
+			}
+			
+			try {
+				switch(option[0].toLowerCase()) {
+				case "negotiation":
+					negotiationMode = NegotiationMode.valueOf(option[1].toUpperCase());
+					break;
+				case "batchwindow":
+					batchWindow = Integer.parseInt(option[1]);
+					if(batchWindow <= 0) throw new IllegalArgumentException();
+					break;
+				case "earlyclose":
+					earlyCloseSatisfaction = Float.parseFloat(option[1]);
+					if(!(earlyCloseSatisfaction >= 0 && earlyCloseSatisfaction <= 1)) throw new IllegalArgumentException();
+					break;
+				case "nearestlots":
+					nearestLots = Integer.parseInt(option[1]);
+					if(nearestLots < 0) throw new IllegalArgumentException();
+					break;
+				case "districts":
+					districts = option[1].equalsIgnoreCase("ON");
+					if(!districts && !option[1].equalsIgnoreCase("OFF")) throw new IllegalArgumentException();
+					break;
+				case "prefilter":
+					prefilter = option[1].equalsIgnoreCase("ON");
+					if(!prefilter && !option[1].equalsIgnoreCase("OFF")) throw new IllegalArgumentException();
+					break;
+				case "codec":
+					contentCodec = ContentCodec.valueOf(option[1].toUpperCase());
+					break;
+				case "vacancyboard":
+					vacancyBoard = option[1].equalsIgnoreCase("ON");
+					if(!vacancyBoard && !option[1].equalsIgnoreCase("OFF")) throw new IllegalArgumentException();
+					break;
+				case "departures":
+					departureScheduler = DepartureScheduler.valueOf(option[1].toUpperCase());
+					break;
+				case "clock":
+					clockMode = ClockMode.valueOf(option[1].toUpperCase());
+					break;
+				case "threads":
+					threadMode = ThreadMode.valueOf(option[1].toUpperCase());
+					break;
+				case "logging":
+					logMode = LogMode.valueOf(option[1].toUpperCase());
+					break;
+				case "logoverflow":
+					logOverflow = Logger.OverflowPolicy.valueOf(option[1].toUpperCase());
+					break;
+				case "loglevel":
+					Logger.getInstance().setLogLevel(Logger.LogLevel.valueOf(option[1].toUpperCase()));
+					break;
+				case "logcategories":
+					Logger.getInstance().setLogCategories(parseLogCategories(option[1]));
+					break;
+				case "advancebooking":
+					maxBookingDelay = Integer.parseInt(option[1]);
+					if(maxBookingDelay < 0 || maxBookingDelay >= ParkingLotCalendar.getHorizon() / 2) throw new IllegalArgumentException();
+					break;
+				case "deadline":
+					adaptiveDeadlines = option[1].equalsIgnoreCase("ADAPTIVE");
+					if(!adaptiveDeadlines && !option[1].equalsIgnoreCase("FIXED")) throw new IllegalArgumentException();
+					break;
+				default:
+					printUsage();
+					System.exit(0);
+					break;
+				}
+			} catch(IllegalArgumentException e) {
+				printUsage();
+				System.exit(0);
+			}
+		}
+		
+		if(logMode == LogMode.ASYNC) {
+			Logger.getInstance().initAsyncLog(logOverflow);
+		}
+		
+		Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.SYSTEM, "Negotiation mode: {}", negotiationMode);
+	}
+	
+	/**
+	 * Parses a comma separated list of log categories.
+	 * 
+	 * @param list the categories, or ALL
+	 * @return the log categories to enable
+	 */
+	private static ArrayList<Logger.LogCategory> parseLogCategories(String list) {
+		
+		ArrayList<Logger.LogCategory> categories = new ArrayList<Logger.LogCategory>();
+		if(list.equalsIgnoreCase("ALL")) {
+			categories.addAll(Arrays.asList(Logger.LogCategory.values()));
+			return categories;
+		}
+		
+		for(String category : list.split(",")) {
+			categories.add(Logger.LogCategory.valueOf(category.trim().toUpperCase()));
 		}
+		
+		return categories;
 	}
 	
 	/**
@@ -121,11 +294,30 @@ public class RunAgents {
 		Logger logger = Logger.getInstance();
 		
 		logger.logPrint("Usage:");
-		logger.logPrint("\t java RunAgents RANDOM <configFilepath>");
-		logger.logPrint("\t java RunAgents FIXED <carConfigFilepath> <lotConfigFilePath>");
+		logger.logPrint("\t java RunAgents RANDOM <configFilepath> [options]");
+		logger.logPrint("\t java RunAgents FIXED <carConfigFilepath> <lotConfigFilePath> [options]");
+		logger.logPrint("Options:");
+		logger.logPrint("\t negotiation=QUEUE|ZONED|CONCURRENT|BATCH \t one negotiation at a time (default), one at a time per reachable zone, all cars at once using spot holds or assigned in bulk by a matcher");
+		logger.logPrint("\t batchWindow=<ms> \t time the matcher gathers car requests before assigning them (default 2000)");
+		logger.logPrint("\t earlyClose=<0-1> \t accept as soon as a proposal reaches this satisfaction or every parking lot in reach answered (default off)");
+		logger.logPrint("\t deadline=FIXED|ADAPTIVE \t 10 second cfp deadline (default) or learned from parking lot response times");
+		logger.logPrint("\t nearestLots=<k> \t distance minded cars only contact the k nearest parking lots with vacancy, widening if all refuse (default off)");
+		logger.logPrint("\t districts=ON|OFF \t cars ask one aggregator agent per district which parking lots can satisfy them before sending cfps (default OFF)");
+		logger.logPrint("\t prefilter=ON|OFF \t parking lots refuse cfps when the car's distance and cost limits rule them out (default OFF)");
+		logger.logPrint("\t codec=SERIALIZED|BINARY|HANDLE \t proposals sent as serialized Java objects (default), in a compact fixed binary layout or as handles to objects shared within the JVM");
+		logger.logPrint("\t vacancyBoard=ON|OFF \t cars subscribe to a board replicating parking lot vacancy and skip full parking lots (default OFF)");
+		logger.logPrint("\t departures=EXECUTOR|WHEEL|HEAP \t each departure scheduled on a shared thread pool (default), batched per tick on a hierarchical timing wheel or drained per tick from each parking lot's own heap on its agent thread");
+		logger.logPrint("\t clock=REAL|VIRTUAL \t parking durations in wall clock time (default) or virtual time skipping to the next departure or arrival once every car settled");
+		logger.logPrint("\t threads=PLATFORM|VIRTUAL \t departure and arrival callbacks run on the scheduler's platform threads (default) or each on its own virtual thread on Java 21 or later");
+		logger.logPrint("\t logging=SYNC|ASYNC \t each log line written by the logging thread (default) or queued in a ring buffer and written in batches by a writer thread");
+		logger.logPrint("\t logOverflow=BLOCK|DROP|SAMPLE \t when the async log buffer is full wait for room (default), drop the line or keep one line in 16");
+		logger.logPrint("\t logLevel=DEBUG|INFO|WARN|ERROR \t lowest level of messages logged, agent argument dumps are always logged (default DEBUG)");
+		logger.logPrint("\t logCategories=ALL|<category>,... \t categories of messages logged out of NEGOTIATION, EVALUATION, PARKING and SYSTEM (default ALL)");
+		logger.logPrint("\t advanceBooking=<hours> \t cars may book a spot up to this many simulated hours ahead, below 2048, parking lots keep a booking calendar (default 0, off)");
 		logger.logPrint("Examples:");
 		logger.logPrint("\t java RunAgents RANDOM ./random.csv");
 		logger.logPrint("\t java RunAgents FIXED ./cars.csv ./lots.csv");
+		logger.logPrint("\t java RunAgents FIXED ./cars.csv ./lots.csv negotiation=CONCURRENT");
 	}
 
 	/**
@@ -146,6 +338,31 @@ public class RunAgents {
 		try {
 			createCarAgents(container);
 			createParkingLotAgents(container);
+			parkingLotGrid = new ParkingLotGrid(parkingLotCoords);
+			parkingLotKdTree = new ParkingLotKdTree(parkingLotCoords);
+			createNegotiationQueues();
+			
+			// Parking lots report their vacancy to their district on setup
+			if(isDistricted()) {
+				createDistrictAgents(container);
+			}
+			
+			// Parking lots publish their vacancy on setup and cars subscribe on setup
+			if(isVacancyBoard()) {
+				container.createNewAgent(VacancyBoardAgent.boardName, "VacancyBoardAgent", null).start();
+			}
+			
+			// Simulated hours count from here, in virtual time departures are clock events instead of timers
+			simulationStart = System.currentTimeMillis();
+			SimulationClock.getInstance().start(clockMode == ClockMode.VIRTUAL, carAgents.size());
+			if(departureScheduler == DepartureScheduler.WHEEL && clockMode == ClockMode.REAL) {
+				DepartureWheel.getInstance().start();
+			}
+			
+			// Parking lots register with the matcher on setup
+			if(negotiationMode == NegotiationMode.BATCH) {
+				container.createNewAgent(BatchMatcherAgent.matcherName, "BatchMatcherAgent", null).start();
+			}
 			
 			for(AgentController agent : parkingLotAgents) {
 				agent.start();
@@ -155,6 +372,11 @@ public class RunAgents {
 				agent.start();
 			}
 			
+			// Hand out negotiation turns once every car is listening
+			if(isQueued()) {
+				container.createNewAgent(QueueCoordinatorAgent.coordinatorName, "QueueCoordinatorAgent", null).start();
+			}
+			
 		} catch(StaleProxyException e) {
 			e.printStackTrace();
 			System.err.println("Exception creating agent!");
@@ -162,9 +384,29 @@ public class RunAgents {
 		}
 	}
 	
+	/**
+	 * Creates and starts one district agent per zone holding at least one parking lot.
+	 * 
+	 * @param container agent container to create agent in
+	 */
+	private static void createDistrictAgents(ContainerController container) throws StaleProxyException {
+		
+		TreeSet<Integer> zones = new TreeSet<Integer>();
+		for(Point coords : parkingLotCoords) {
+			zones.add(calcParkZone(coords));
+		}
+		
+		for(int zone : zones) {
+			districtNames.add(DistrictAgent.getDistrictName(zone));
+			container.createNewAgent(DistrictAgent.getDistrictName(zone), "DistrictAgent", new Object[] {zone}).start();
+		}
+		
+		Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.SYSTEM, "Created {} district agents", districtNames.size());
+	}
+	
 	/**
 	 * Creates car agents using randomised parameters or fixed parameters read from config file
-	 * according to the command line options. Adds cars to the negotiation queue.
+	 * according to the command line options.
 	 * 
 	 * @param container agent container to create agent in
 	 */
@@ -183,8 +425,8 @@ public class RunAgents {
 				}
 
 				int carID = carAgents.size();
-				carAgents.add(container.createNewAgent("Car" + carID, "CarAgent", carArgsObj));
-				waitingCars.add("Car" + carID);
+				carAgentArgs.add(carArgsObj);
+				carAgents.add(container.createNewAgent(carNamePrefix + carID, "CarAgent", carArgsObj));
 			}
 		// Use fixed parameters read from config file
 		} else {
@@ -196,14 +438,14 @@ public class RunAgents {
 				
 				// Check if coordinates overlap other agents
 				if(carCoords.contains(carPoint) || parkingLotCoords.contains(carPoint)) {
-					Logger.getInstance().logPrint("Car coords overlap! (" + carPoint.x + ", " + carPoint.y + ")");
+					Logger.getInstance().log(Logger.LogLevel.ERROR, Logger.LogCategory.SYSTEM, "Car coords overlap! ({}, {})", carPoint.x, carPoint.y);
 					System.exit(1);
 				}
 				
 				int carID = carAgents.size();
 				carCoords.add(carPoint);
-				carAgents.add(container.createNewAgent("Car" + carID, "CarAgent", carArgsObj));
-				waitingCars.add("Car" + carID);
+				carAgentArgs.add(carArgsObj);
+				carAgents.add(container.createNewAgent(carNamePrefix + carID, "CarAgent", carArgsObj));
 			}
 		}
 	}
@@ -228,6 +470,7 @@ public class RunAgents {
 					parkingLotArgsObj[j] = parkingLotArgs.get(j);
 				}
 
+				parkingLotIndices.put("ParkingLot" + parkingLotAgents.size(), parkingLotAgents.size());
 				parkingLotAgents.add(container.createNewAgent("ParkingLot" + parkingLotAgents.size(), "ParkingLotAgent", parkingLotArgsObj));
 			}
 		// Use fixed parameters read from config file
@@ -244,16 +487,78 @@ public class RunAgents {
 				
 				// Check if coordinates overlap other agents
 				if(carCoords.contains(lotPoint) || parkingLotCoords.contains(lotPoint)) {
-					Logger.getInstance().logPrint("Parking lot coords overlap! (" + lotPoint.x + ", " + lotPoint.y + ")");
+					Logger.getInstance().log(Logger.LogLevel.ERROR, Logger.LogCategory.SYSTEM, "Parking lot coords overlap! ({}, {})", lotPoint.x, lotPoint.y);
 					System.exit(1);
 				}
 
 				parkingLotCoords.add(lotPoint);
+				parkingLotIndices.put("ParkingLot" + parkingLotAgents.size(), parkingLotAgents.size());
 				parkingLotAgents.add(container.createNewAgent("ParkingLot" + parkingLotAgents.size(), "ParkingLotAgent", parkingLotArgsObj));
 			}
 		}
 	}
 	
+	/**
+	 * Places every car agent in the negotiation queues it has to wait in, following car creation order.
+	 * A single queue is shared by all cars when negotiating one at a time. When zoned, each car waits
+	 * in the queue of every zone holding a parking lot within its reach, so it only waits behind cars
+	 * that could compete for the same parking lots. Cars negotiating concurrently or in batches don't wait at all.
+	 */
+	private static void createNegotiationQueues() {
+		
+		for(int i = 0; i < carAgentArgs.size(); i++) {
+			
+			String carName = carNamePrefix + i;
+			ArrayList<ArrayDeque<String>> queues = new ArrayList<ArrayDeque<String>>();
+			
+			switch(negotiationMode) {
+			case QUEUE:
+				queues.add(waitingCars);
+				break;
+			case ZONED:
+				for(int zone : calcReachableZones(carAgentArgs.get(i))) {
+					if(!zoneQueues.containsKey(zone)) {
+						zoneQueues.put(zone, new ArrayDeque<String>());
+					}
+					queues.add(zoneQueues.get(zone));
+				}
+				break;
+			case CONCURRENT:
+			case BATCH:
+				break;
+			}
+			
+			for(ArrayDeque<String> queue : queues) {
+				queue.add(carName);
+			}
+			carQueues.put(carName, queues);
+		}
+		
+		if(negotiationMode == NegotiationMode.ZONED) {
+			Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.SYSTEM, "Created {} zone negotiation queues", zoneQueues.size());
+		}
+	}
+	
+	/**
+	 * Calculates the zones holding at least one parking lot the car agent could accept
+	 * according to its evaluator's reach.
+	 * 
+	 * @param carArgs the car agent arguments
+	 * @return the reachable zones in ascending order
+	 */
+	private static TreeSet<Integer> calcReachableZones(Object[] carArgs) {
+		
+		Point coords = new Point((int) carArgs[fixedXCoordI], (int) carArgs[fixedYCoordI]);
+		int reach = CarEvaluator.calcReach((int) carArgs[evaluatorI], (int) carArgs[maxDistanceI]);
+		
+		TreeSet<Integer> zones = new TreeSet<Integer>();
+		for(int i : parkingLotGrid.findWithin(coords, reach)) {
+			zones.add(calcParkZone(parkingLotCoords.get(i)));
+		}
+		
+		return zones;
+	}
+	
 	/**
 	 * For each park gets its zone and pricing range for outputting to the CSV file for data mining.
 	 */
@@ -378,6 +683,9 @@ public class RunAgents {
 			}
 		}
 		
+		// Select car evaluator (0 to 3)
+		args.add(generateBetweenBounds(r, 0, 4));
+		
 		return args;
 	}
 	
@@ -453,6 +761,67 @@ public class RunAgents {
 		return r.nextInt(hBound - lBound) + lBound;
 	}
 
+	/**
+	 * @return the spatial index of the parking lots
+	 */
+	public static ParkingLotGrid getParkingLotGrid() {
+		return parkingLotGrid;
+	}
+	
+	/**
+	 * @return the nearest parking lot index
+	 */
+	public static ParkingLotKdTree getParkingLotKdTree() {
+		return parkingLotKdTree;
+	}
+	
+	/**
+	 * @param parkingLotName the local name of the parking lot agent
+	 * @return the index of the parking lot agent
+	 */
+	public static int getParkingLotIndex(String parkingLotName) {
+		return parkingLotIndices.get(parkingLotName);
+	}
+	
+	/**
+	 * @param coords the parking lot coords
+	 * @return the local name of the district agent of the parking lot
+	 */
+	public static String getDistrictName(Point coords) {
+		return DistrictAgent.getDistrictName(calcParkZone(coords));
+	}
+	
+	/**
+	 * @return the local names of the district agents
+	 */
+	public static ArrayList<String> getDistrictNames() {
+		return districtNames;
+	}
+	
+	/**
+	 * Parses the car ID out of a car agent's local name, "Car" followed by the ID, without allocating.
+	 * 
+	 * @param carName the local name of the car agent
+	 * @return the ID of the car agent
+	 */
+	public static int getCarId(String carName) {
+		
+		int carId = 0;
+		for(int i = carNamePrefix.length(); i < carName.length(); i++) {
+			carId = carId * 10 + (carName.charAt(i) - '0');
+		}
+		
+		return carId;
+	}
+	
+	/**
+	 * @param carId the ID of the car agent
+	 * @return the local name of the car agent
+	 */
+	public static String getCarName(int carId) {
+		return carNamePrefix + carId;
+	}
+	
 	/**
 	 * @return the parking lot agents
 	 */
@@ -467,9 +836,114 @@ public class RunAgents {
 	}
 
 	/**
-	 * @return the cars queueing up for a parking spot
+	 * @return the negotiation queues each car agent has to wait in, in car creation order
+	 */
+	public static LinkedHashMap<String, ArrayList<ArrayDeque<String>>> getCarQueues() {
+		return carQueues;
+	}
+
+	/**
+	 * @return the negotiation scheduling mode
+	 */
+	public static NegotiationMode getNegotiationMode() {
+		return negotiationMode;
+	}
+
+	/**
+	 * @return whether cars wait in negotiation queues for their turn
+	 */
+	public static boolean isQueued() {
+		return negotiationMode == NegotiationMode.QUEUE || negotiationMode == NegotiationMode.ZONED;
+	}
+
+	/**
+	 * @return the satisfaction at which cars stop waiting for more proposals, negative if disabled
+	 */
+	public static float getEarlyCloseSatisfaction() {
+		return earlyCloseSatisfaction;
+	}
+
+	/**
+	 * @return the parking lots distance minded cars contact per round, 0 to contact all within reach
+	 */
+	public static int getNearestLots() {
+		return nearestLots;
+	}
+
+	/**
+	 * @return whether cars look up the parking lots able to satisfy them through district agents
+	 */
+	public static boolean isDistricted() {
+		return districts && negotiationMode != NegotiationMode.BATCH;
+	}
+
+	/**
+	 * @return whether parking lots refuse cfps from car agents whose limits rule them out
+	 */
+	public static boolean isPrefiltering() {
+		return prefilter;
+	}
+
+	/**
+	 * @return the codec proposals are sent with
+	 */
+	public static ContentCodec getContentCodec() {
+		return contentCodec;
+	}
+
+	/**
+	 * @return whether parking lot vacancy is pushed to car agents through the vacancy board
+	 */
+	public static boolean isVacancyBoard() {
+		return vacancyBoard && negotiationMode != NegotiationMode.BATCH;
+	}
+
+	/**
+	 * @return the most simulated hours ahead car agents may book a spot, 0 when advance booking is off
+	 */
+	public static int getMaxBookingDelay() {
+		return negotiationMode != NegotiationMode.BATCH ? maxBookingDelay : 0;
+	}
+
+	/**
+	 * @return whether parking lots keep a booking calendar for advance bookings
+	 */
+	public static boolean isAdvanceBooking() {
+		return getMaxBookingDelay() > 0;
+	}
+
+	/**
+	 * @return the scheduler of parking lot departures
+	 */
+	public static DepartureScheduler getDepartureScheduler() {
+		return departureScheduler;
+	}
+
+	/**
+	 * @return whether simulation callbacks run on virtual threads when the JVM supports them
+	 */
+	public static boolean isVirtualThreads() {
+		return threadMode == ThreadMode.VIRTUAL;
+	}
+
+	/**
+	 * @return the time in milliseconds the simulated hours are counted from
+	 */
+	public static long getSimulationStart() {
+		return simulationStart;
+	}
+
+	/**
+	 * @return whether cfp deadlines are learned from parking lot response times
+	 */
+	public static boolean isAdaptiveDeadlines() {
+		return adaptiveDeadlines;
+	}
+
+	/**
+	 * @return the time in milliseconds the batch matcher gathers car requests for
 	 */
-	public static LinkedBlockingQueue<String> getWaitingCars() {
-		return waitingCars;
+	public static int getBatchWindow() {
+		return batchWindow;
 	}
 }
\ No newline at end of file
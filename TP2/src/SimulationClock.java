@@ -0,0 +1,157 @@
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+
+public class SimulationClock implements Runnable {
+
+	// Clock parameters
+	private static final long pollInterval = 10;
+	private static final long quietPeriod = 200;
+	
+	private static SimulationClock singleton = new SimulationClock();
+	
+	private boolean virtual = false;
+	private volatile long skippedTime = 0;
+	
+	// Pending events and the car agents yet to settle, guarded by the clock
+	private PriorityQueue<SimulationEvent> events = new PriorityQueue<SimulationEvent>();
+	private long scheduledEvents = 0;
+	private int unsettledCars = 0;
+	private long lastSettleTime;
+	private boolean finished = false;
+	
+	/**
+	 * Private constructor for singleton pattern.
+	 */
+	private SimulationClock() {}
+	
+	/**
+	 * @return the singleton instance of the class
+	 */
+	public static SimulationClock getInstance( ) {
+		return singleton;
+	}
+	
+	/**
+	 * Starts the clock. A real time clock follows the wall clock. A virtual time clock runs the events
+	 * scheduled on it in a discrete-event fashion, following the wall clock while car agents negotiate
+	 * and jumping straight to the next event once every car agent settled and the system went quiet.
+	 * 
+	 * @param virtual whether the clock runs in virtual time
+	 * @param cars the number of car agents that will negotiate
+	 */
+	public void start(boolean virtual, int cars) {
+		
+		this.virtual = virtual;
+		if(!virtual) return;
+		
+		synchronized(this) {
+			unsettledCars = cars;
+			lastSettleTime = System.currentTimeMillis();
+		}
+		
+		Thread thread = new Thread(this, "SimulationClock");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	/**
+	 * @return the current simulation time in milliseconds
+	 */
+	public long now() {
+		return System.currentTimeMillis() + skippedTime;
+	}
+	
+	/**
+	 * Converts a simulation time to the wall clock, for deadlines enforced by JADE itself.
+	 * 
+	 * @param time the simulation time in milliseconds
+	 * @return the wall clock time in milliseconds
+	 */
+	public long toWallTime(long time) {
+		return time - skippedTime;
+	}
+	
+	/**
+	 * @return whether the clock runs in virtual time
+	 */
+	public boolean isVirtual() {
+		return virtual;
+	}
+	
+	/**
+	 * Schedules an action to run once the delay has elapsed in simulation time, only used in virtual time.
+	 * 
+	 * @param action the action to run
+	 * @param delay the delay in milliseconds
+	 */
+	public synchronized void schedule(Runnable action, long delay) {
+		events.add(new SimulationEvent(now() + delay, scheduledEvents++, action));
+	}
+	
+	/**
+	 * Tells the clock a car agent is done negotiating, whether it parked or not.
+	 */
+	public synchronized void settleCar() {
+		
+		unsettledCars--;
+		lastSettleTime = System.currentTimeMillis();
+	}
+	
+	@Override
+	public void run() {
+		
+		while(true) {
+			
+			// Keep skipping from event to event without sleeping while idle
+			if(runDueEvents()) continue;
+			
+			try {
+				Thread.sleep(pollInterval);
+			} catch(InterruptedException e) {
+				e.printStackTrace();
+				System.err.println("Simulation clock interrupted!");
+				System.exit(1);
+			}
+		}
+	}
+	
+	/**
+	 * Runs all the events due, first skipping to the next event if the system is idle. The system
+	 * is idle once every car agent settled and no car agent settled for a quiet period, letting the
+	 * last proposal acceptances and rejections reach the parking lots.
+	 * 
+	 * @return whether the clock skipped to the next event
+	 */
+	private boolean runDueEvents() {
+		
+		ArrayList<SimulationEvent> due = new ArrayList<SimulationEvent>();
+		boolean skipped = false;
+		
+		synchronized(this) {
+			
+			long now = now();
+			boolean idle = unsettledCars <= 0 && System.currentTimeMillis() - lastSettleTime >= quietPeriod;
+			
+			if(idle && !events.isEmpty() && events.peek().getTime() > now) {
+				skippedTime += events.peek().getTime() - now;
+				now = events.peek().getTime();
+				skipped = true;
+			}
+			
+			while(!events.isEmpty() && events.peek().getTime() <= now) {
+				due.add(events.poll());
+			}
+			
+			if(idle && events.isEmpty() && due.isEmpty() && !finished) {
+				finished = true;
+				Logger.getInstance().log(Logger.LogLevel.INFO, Logger.LogCategory.SYSTEM, "Simulation finished at simulated hour {}", ParkingLotCalendar.getCurrentHour());
+			}
+		}
+		
+		for(SimulationEvent event : due) {
+			event.getAction().run();
+		}
+		
+		return skipped;
+	}
+}
@@ -0,0 +1,41 @@
+public class SimulationEvent implements Comparable<SimulationEvent> {
+
+	private long time;
+	private long sequence;
+	private Runnable action;
+	
+	/**
+	 * Encapsulates an action scheduled on the simulation clock, such as a car agent vacating or
+	 * arriving at its spot. Events due at the same time run in the order they were scheduled.
+	 * 
+	 * @param time the simulation time in milliseconds the event is due
+	 * @param sequence the number of events scheduled before this one
+	 * @param action the action to run
+	 */
+	public SimulationEvent(long time, long sequence, Runnable action) {
+		this.time = time;
+		this.sequence = sequence;
+		this.action = action;
+	}
+	
+	@Override
+	public int compareTo(SimulationEvent other) {
+		
+		if(time != other.time) return Long.compare(time, other.time);
+		return Long.compare(sequence, other.sequence);
+	}
+	
+	/**
+	 * @return the simulation time in milliseconds the event is due
+	 */
+	public long getTime() {
+		return time;
+	}
+	
+	/**
+	 * @return the action to run
+	 */
+	public Runnable getAction() {
+		return action;
+	}
+}
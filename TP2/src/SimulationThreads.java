@@ -0,0 +1,64 @@
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+public class SimulationThreads {
+
+	// Set once on first use, the flag is published after the executor so that readers skip the lock
+	private static volatile boolean initialised = false;
+	private static Executor virtualExecutor;
+	
+	/**
+	 * Creates the scheduler of simulation callbacks, such as parking lot departures. With virtual threads
+	 * a single platform thread only keeps time and hands each due callback to its own virtual thread,
+	 * otherwise the callbacks run on a pool of platform threads.
+	 * 
+	 * @param platformThreads the number of platform threads running callbacks without virtual threads
+	 * @return the scheduler
+	 */
+	public static ScheduledThreadPoolExecutor createScheduler(int platformThreads) {
+		return new ScheduledThreadPoolExecutor(getVirtualExecutor() != null ? 1 : platformThreads);
+	}
+	
+	/**
+	 * Wraps a simulation callback so that running it starts it on a new virtual thread if enabled
+	 * and supported, the callback itself is returned otherwise.
+	 * 
+	 * @param task the callback
+	 * @return the callback to run on the scheduling thread
+	 */
+	public static Runnable dispatch(Runnable task) {
+		
+		Executor executor = getVirtualExecutor();
+		if(executor == null) return task;
+		
+		return () -> executor.execute(task);
+	}
+	
+	/**
+	 * Returns the executor starting a virtual thread per task, created on first use through reflection
+	 * so that the program still builds and runs on JVMs older than Java 21, which fall back to platform
+	 * threads with a warning.
+	 * 
+	 * @return the executor or null if virtual threads are disabled or unsupported by the JVM
+	 */
+	private static Executor getVirtualExecutor() {
+		
+		if(initialised) return virtualExecutor;
+		
+		synchronized(SimulationThreads.class) {
+			
+			if(!initialised && RunAgents.isVirtualThreads()) {
+				try {
+					virtualExecutor = (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+				} catch(ReflectiveOperationException e) {
+					Logger.getInstance().log(Logger.LogLevel.WARN, Logger.LogCategory.SYSTEM, "Virtual threads need Java 21 or later, using platform threads");
+				}
+			}
+			
+			initialised = true;
+		}
+		
+		return virtualExecutor;
+	}
+}
@@ -0,0 +1,106 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SpotInventory {
+
+	// Free spots per spot type packed in a single word, one field per spot type ordinal
+	private static final int countBits = 21;
+	private static final long countMask = (1L << countBits) - 1;
+	
+	private AtomicLong counts = new AtomicLong();
+	
+	/**
+	 * Constructs a lock-free spot inventory. All the free spot counts share a single atomic word, so
+	 * reservations and releases are compare-and-set operations and every read is a consistent snapshot
+	 * of all spot types at once.
+	 * 
+	 * @param regularSpots the free regular spots
+	 * @param luxurySpots the free luxury spots
+	 * @param handicapSpots the free handicap spots
+	 */
+	public SpotInventory(int regularSpots, int luxurySpots, int handicapSpots) {
+		
+		long initial = 0;
+		initial |= pack(ParkingLotAgent.SpotType.REGULAR, regularSpots);
+		initial |= pack(ParkingLotAgent.SpotType.LUXURY, luxurySpots);
+		initial |= pack(ParkingLotAgent.SpotType.HANDICAP, handicapSpots);
+		counts.set(initial);
+	}
+	
+	/**
+	 * Takes one spot of the given type if there is vacancy.
+	 * 
+	 * @param spot the spot type to take
+	 * @return whether a spot was taken
+	 */
+	public boolean tryReserve(ParkingLotAgent.SpotType spot) {
+		
+		long one = 1L << shift(spot);
+		while(true) {
+			
+			long current = counts.get();
+			if(getSpots(current, spot) == 0) return false;
+			if(counts.compareAndSet(current, current - one)) return true;
+		}
+	}
+	
+	/**
+	 * Restores one spot of the given type, previously taken with tryReserve.
+	 * 
+	 * @param spot the spot type to restore
+	 */
+	public void release(ParkingLotAgent.SpotType spot) {
+		counts.getAndAdd(1L << shift(spot));
+	}
+	
+	/**
+	 * @return a consistent snapshot of the free spots of every spot type
+	 */
+	public long snapshot() {
+		return counts.get();
+	}
+	
+	/**
+	 * @param snapshot the inventory snapshot
+	 * @param spot the spot type
+	 * @return the free spots of the given type in the snapshot
+	 */
+	public static int getSpots(long snapshot, ParkingLotAgent.SpotType spot) {
+		return (int) ((snapshot >>> shift(spot)) & countMask);
+	}
+	
+	/**
+	 * @param snapshot the inventory snapshot
+	 * @return the bitmask of spot types with vacancy in the snapshot
+	 */
+	public static int getSpotMask(long snapshot) {
+		
+		int mask = 0;
+		for(ParkingLotAgent.SpotType spot : ParkingLotAgent.SpotType.values()) {
+			if(getSpots(snapshot, spot) > 0) mask |= 1 << spot.ordinal();
+		}
+		
+		return mask;
+	}
+	
+	/**
+	 * @param spot the spot type
+	 * @param spots the free spots of the given type
+	 * @return the free spots shifted into the field of the spot type
+	 */
+	private static long pack(ParkingLotAgent.SpotType spot, int spots) {
+		
+		if(spots < 0 || spots > countMask) {
+			throw new IllegalArgumentException("Spot count out of range: " + spots);
+		}
+		
+		return (long) spots << shift(spot);
+	}
+	
+	/**
+	 * @param spot the spot type
+	 * @return the bit offset of the spot type's field
+	 */
+	private static int shift(ParkingLotAgent.SpotType spot) {
+		return spot.ordinal() * countBits;
+	}
+}
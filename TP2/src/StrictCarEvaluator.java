@@ -1,5 +1,3 @@
-import jade.lang.acl.ACLMessage;
-
 public class StrictCarEvaluator extends CarEvaluator {
 
 	/**
@@ -7,34 +5,34 @@ public class StrictCarEvaluator extends CarEvaluator {
 	 * parking lot proposals. This evaluator chooses the lowest distance and hourly
 	 * cost possible by checking the combined value of each proposal.
 	 * 
-	 * @param agent the evaluating car agent
+	 * @param car the terms of the evaluating car agent
 	 */
-	public StrictCarEvaluator(CarAgent agent) {
-		super(agent, 0);
+	public StrictCarEvaluator(CarAgentProposal car) {
+		super(car, 0);
 	}
 	
 	@Override
-	protected int evaluateProposal(ACLMessage proposeMsg) {
+	protected int evaluateProposal(String proposer) {
 		
 		// Check distance to parking lot
-		int dist = distanceToParking(agent.getCoords(), proposal.getCoords());
-		if(dist > agent.getMaxDistance()) {
-			Logger.getInstance().logPrint("Rejecting proposal of " + proposeMsg.getSender().getLocalName() + " because of distance");
+		int dist = distanceToParking(car.getCoords(), proposal.getCoords());
+		if(dist > car.getMaxDistance()) {
+			Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.EVALUATION, "Rejecting proposal of {} because of distance", proposer);
 			return 0;
 		}
 		
 		// Verify hourly cost according to spot type desired by car agent, priority is REGULAR -> HANDICAP -> LUXURY
 		int cost = 0;
-		if(agent.isRegularSpot() && proposal.isHasRegular()) {
+		if(car.isRegularSpot() && proposal.isHasRegular()) {
 			cost = proposal.getHourlyCost();
-		} else if(agent.isHandicapSpot() && proposal.isHasHandicap()) {
+		} else if(car.isHandicapSpot() && proposal.isHasHandicap()) {
 			cost = proposal.getHourlyCost();
-		} else if(agent.isLuxurySpot() && proposal.isHasLuxury()) {
+		} else if(car.isLuxurySpot() && proposal.isHasLuxury()) {
 			cost = (int) Math.round(proposal.getHourlyCost() * proposal.getLuxuryCostPercent() / 100.0f);
 		}
 		
-		if(cost > agent.getMaxHourlyCost()) {
-			Logger.getInstance().logPrint("Rejecting proposal of " + proposeMsg.getSender().getLocalName() + " because of cost");
+		if(cost > car.getMaxHourlyCost()) {
+			Logger.getInstance().log(Logger.LogLevel.DEBUG, Logger.LogCategory.EVALUATION, "Rejecting proposal of {} because of cost", proposer);
 			return 0;
 		}
 		return dist + cost;
@@ -0,0 +1,90 @@
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.domain.FIPANames;
+import jade.lang.acl.ACLMessage;
+
+public class VacancyBoardAgent extends Agent {
+
+	private static final long serialVersionUID = -7605127830367450912L;
+	
+	// Vacancy board messages
+	public static final String boardName = "VacancyBoard";
+	public static final String boardOntology = "vacancy-board";
+	
+	private long version = 0;
+	private HashMap<String, ParkingLotStatus> statuses = new HashMap<String, ParkingLotStatus>();
+	private LinkedHashSet<AID> subscribers = new LinkedHashSet<AID>();
+	
+	public void setup() {
+		addBehaviour(new VacancyBoardBehavior(this));
+	}
+	
+	/**
+	 * Stores the latest status of a parking lot and pushes it to every subscribed car agent.
+	 * 
+	 * @param parkingLotName the local name of the parking lot agent
+	 * @param status the parking lot status
+	 */
+	public void publish(String parkingLotName, ParkingLotStatus status) {
+		
+		version++;
+		statuses.put(parkingLotName, status);
+		if(subscribers.isEmpty()) return;
+		
+		HashMap<String, ParkingLotStatus> change = new HashMap<String, ParkingLotStatus>();
+		change.put(parkingLotName, status);
+		
+		ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
+		msg.setProtocol(FIPANames.InteractionProtocol.FIPA_SUBSCRIBE);
+		msg.setOntology(boardOntology);
+		for(AID subscriber : subscribers) {
+			msg.addReceiver(subscriber);
+		}
+		
+		setUpdateContent(msg, new VacancyUpdate(version, change));
+		send(msg);
+	}
+	
+	/**
+	 * Subscribes a car agent to the board, agreeing with the full snapshot of the board as content.
+	 * 
+	 * @param subscription the subscribe message of the car agent
+	 */
+	public void subscribe(ACLMessage subscription) {
+		
+		subscribers.add(subscription.getSender());
+		
+		ACLMessage agree = subscription.createReply();
+		agree.setPerformative(ACLMessage.AGREE);
+		setUpdateContent(agree, new VacancyUpdate(version, new HashMap<String, ParkingLotStatus>(statuses)));
+		send(agree);
+	}
+	
+	/**
+	 * Stops pushing changes to a car agent.
+	 * 
+	 * @param subscriber the car agent cancelling its subscription
+	 */
+	public void cancel(AID subscriber) {
+		subscribers.remove(subscriber);
+	}
+	
+	/**
+	 * @param msg the message to set the content of
+	 * @param update the vacancy board change
+	 */
+	private void setUpdateContent(ACLMessage msg, VacancyUpdate update) {
+		
+		try {
+			msg.setContentObject(update);
+		} catch(IOException e) {
+			e.printStackTrace();
+			System.err.println("I/O Exception in vacancy board agent!");
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.lang.acl.UnreadableException;
+
+public class VacancyBoardBehavior extends CyclicBehaviour {
+
+	private static final long serialVersionUID = -1384519926631250927L;
+
+	VacancyBoardAgent agent;
+	
+	private MessageTemplate template = MessageTemplate.MatchOntology(VacancyBoardAgent.boardOntology);
+	
+	/**
+	 * Constructs a vacancy board behaviour responsible for receiving the status changes parking lots
+	 * publish and the subscriptions and cancellations of car agents.
+	 * 
+	 * @param a the vacancy board agent
+	 */
+	public VacancyBoardBehavior(Agent a) {
+		super(a);
+		this.agent = (VacancyBoardAgent) a;
+	}
+
+	@Override
+	public void action() {
+		
+		ACLMessage msg = myAgent.receive(template);
+		if(msg == null) {
+			block();
+			return;
+		}
+		
+		try {
+			switch(msg.getPerformative()) {
+			case ACLMessage.INFORM:
+				agent.publish(msg.getSender().getLocalName(), (ParkingLotStatus) msg.getContentObject());
+				break;
+			case ACLMessage.SUBSCRIBE:
+				agent.subscribe(msg);
+				break;
+			case ACLMessage.CANCEL:
+				agent.cancel(msg.getSender());
+				break;
+			default:
+				break;
+			}
+		} catch(UnreadableException e) {
+			e.printStackTrace();
+			System.err.println("Error occured during the decoding of the content of the ACLMessage!");
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,36 @@
+import java.io.Serializable;
+import java.util.HashMap;
+
+public class VacancyUpdate implements Serializable {
+
+	private static final long serialVersionUID = 8129740326181153394L;
+	
+	long version;
+	HashMap<String, ParkingLotStatus> statuses;
+	
+	/**
+	 * Encapsulates a versioned change of the vacancy board, either the full snapshot sent to a new
+	 * subscriber or the latest status of a single parking lot.
+	 * 
+	 * @param version the board version after the change
+	 * @param statuses the parking lot statuses by parking lot local name
+	 */
+	public VacancyUpdate(long version, HashMap<String, ParkingLotStatus> statuses) {
+		this.version = version;
+		this.statuses = statuses;
+	}
+
+	/**
+	 * @return the board version after the change
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @return the parking lot statuses by parking lot local name
+	 */
+	public HashMap<String, ParkingLotStatus> getStatuses() {
+		return statuses;
+	}
+}